@@ -0,0 +1,193 @@
+/**
+ * Read the README.md for more details.
+ * @author Julian Lau
+ */
+package dungeon;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures each phase of the generator, and the whole generation, at several dungeon sizes.
+ * A phase starts from a dungeon that went through the phases before it, rebuilt before every
+ * call. The gc profiler counts that rebuild too, so the allocation of a phase is the difference
+ * from the benchmark of the phase before it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeneratorBenchmark {
+    /**
+     * Dungeon size and seed shared by every benchmark.
+     */
+    @State(Scope.Thread)
+    public static class Size {
+        /**
+         * Number of chambers generated.
+         */
+        @Param({"5", "100", "1000", "10000"})
+        int chambers;
+        /**
+         * Seed of the next dungeon, changed on every call so no run repeats the last.
+         */
+        long seed;
+
+        /**
+         * Moves to the next seed.
+         */
+        @Setup(Level.Invocation)
+        public void nextSeed() {
+            ++seed;
+        }
+    }
+
+    /**
+     * Dungeon with its chambers created.
+     */
+    @State(Scope.Thread)
+    public static class Created {
+        /**
+         * The dungeon.
+         */
+        Generator generator;
+
+        /**
+         * Creates the chambers.
+         * @param size Dungeon size and seed.
+         */
+        @Setup(Level.Invocation)
+        public void setUp(Size size) {
+            generator = new Generator(size.seed);
+            generator.createChambers(size.chambers);
+        }
+    }
+
+    /**
+     * Dungeon with its doors indexed and shuffled.
+     */
+    @State(Scope.Thread)
+    public static class Indexed {
+        /**
+         * The dungeon.
+         */
+        Generator generator;
+
+        /**
+         * Creates the chambers and indexes their doors.
+         * @param size Dungeon size and seed.
+         */
+        @Setup(Level.Invocation)
+        public void setUp(Size size) {
+            generator = new Generator(size.seed);
+            generator.createChambers(size.chambers);
+            generator.setAvailableChambers();
+        }
+    }
+
+    /**
+     * Dungeon with its doors paired.
+     */
+    @State(Scope.Thread)
+    public static class Assigned {
+        /**
+         * The dungeon.
+         */
+        Generator generator;
+
+        /**
+         * Creates the chambers and pairs their doors.
+         * @param size Dungeon size and seed.
+         */
+        @Setup(Level.Invocation)
+        public void setUp(Size size) {
+            generator = new Generator(size.seed);
+            generator.createChambers(size.chambers);
+            generator.setAvailableChambers();
+            generator.assignChambers();
+        }
+    }
+
+    /**
+     * Creates the chambers.
+     * @param size Dungeon size and seed.
+     * @return The dungeon.
+     */
+    @Benchmark
+    public Generator createChambers(Size size) {
+        Generator generator = new Generator(size.seed);
+        generator.createChambers(size.chambers);
+        return generator;
+    }
+
+    /**
+     * Creates the chambers on every core.
+     * @param size Dungeon size and seed.
+     * @return The dungeon.
+     */
+    @Benchmark
+    public Generator createChambersParallel(Size size) {
+        Generator generator = new Generator(size.seed);
+        generator.createChambersParallel(size.chambers);
+        return generator;
+    }
+
+    /**
+     * Indexes and shuffles the doors.
+     * @param dungeon Dungeon with its chambers created.
+     * @return The dungeon.
+     */
+    @Benchmark
+    public Generator setAvailableChambers(Created dungeon) {
+        dungeon.generator.setAvailableChambers();
+        return dungeon.generator;
+    }
+
+    /**
+     * Pairs the doors.
+     * @param dungeon Dungeon with its doors indexed.
+     * @return The number of doors left unpaired.
+     */
+    @Benchmark
+    public int assignChambers(Indexed dungeon) {
+        return dungeon.generator.assignChambers();
+    }
+
+    /**
+     * Creates a passage for every pair of doors.
+     * @param dungeon Dungeon with its doors paired.
+     * @return The dungeon.
+     */
+    @Benchmark
+    public Generator createPassages(Assigned dungeon) {
+        dungeon.generator.createPassages();
+        return dungeon.generator;
+    }
+
+    /**
+     * Runs every phase.
+     * @param size Dungeon size and seed.
+     * @return The dungeon.
+     */
+    @Benchmark
+    public Generator generate(Size size) {
+        Generator generator = new Generator(size.seed);
+        generator.createChambers(size.chambers);
+        generator.setAvailableChambers();
+        generator.assignChambers();
+        generator.createPassages();
+        return generator;
+    }
+}
@@ -0,0 +1,154 @@
+/**
+ * Read the README.md for more details.
+ * @author Julian Lau
+ */
+package dungeon;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures creating and describing single chambers, passages and doors.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpaceBenchmark {
+    /**
+     * Seed of the dungeon described, so every run describes the same spaces.
+     */
+    private static final long SEED = 42;
+    /**
+     * Chamber described.
+     */
+    private Chamber chamber;
+    /**
+     * Passage described.
+     */
+    private Passage passage;
+    /**
+     * Door described.
+     */
+    private Door door;
+    /**
+     * Roll for the next passage section, cycling through the whole table.
+     */
+    private int sectionRoll;
+
+    /**
+     * Generates a small dungeon to take the described spaces from.
+     */
+    @Setup
+    public void setUp() {
+        Generator generator = new Generator(SEED);
+        generator.createChambers(5);
+        generator.setAvailableChambers();
+        generator.assignChambers();
+        generator.createPassages();
+        chamber = generator.getChamberList().get(0);
+        passage = generator.getPassageList().get(0);
+        door = chamber.getDoorList().get(0);
+    }
+
+    //====================================================
+    // Creation.
+    //====================================================
+
+    /**
+     * Creates a chamber with its contents and doors.
+     * @return The chamber.
+     */
+    @Benchmark
+    public Chamber newChamber() {
+        return new Chamber();
+    }
+
+    /**
+     * Creates a door.
+     * @return The door.
+     */
+    @Benchmark
+    public Door newDoor() {
+        return new Door();
+    }
+
+    /**
+     * Creates a passage section from every roll in turn.
+     * @return The section.
+     */
+    @Benchmark
+    public PassageSection newPassageSection() {
+        sectionRoll = sectionRoll % 20 + 1;
+        return new PassageSection(sectionRoll);
+    }
+
+    //====================================================
+    // Descriptions.
+    //====================================================
+
+    /**
+     * Gets a chamber description, cached after the first call.
+     * @return The description.
+     */
+    @Benchmark
+    public String chamberDescription() {
+        return chamber.getDescription();
+    }
+
+    /**
+     * Gets a passage description, cached after the first call.
+     * @return The description.
+     */
+    @Benchmark
+    public String passageDescription() {
+        return passage.getDescription();
+    }
+
+    /**
+     * Gets a door description, cached after the first call.
+     * @return The description.
+     */
+    @Benchmark
+    public String doorDescription() {
+        return door.getDescription();
+    }
+
+    /**
+     * Builds a chamber description from scratch.
+     * @return The description.
+     */
+    @Benchmark
+    public String renderChamber() {
+        return DescriptionRenderer.describe(chamber);
+    }
+
+    /**
+     * Builds a passage description from scratch.
+     * @return The description.
+     */
+    @Benchmark
+    public String renderPassage() {
+        return DescriptionRenderer.describe(passage);
+    }
+
+    /**
+     * Builds a door description from scratch.
+     * @return The description.
+     */
+    @Benchmark
+    public String renderDoor() {
+        return DescriptionRenderer.describe(door);
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * Read the README.md for more details.
+ * @author Julian Lau
+ */
+package dungeon;
+
+/**
+ * Samples from a fixed discrete distribution in constant time (Walker's alias method).
+ * Every sample costs exactly two rolls, however skewed the weights are.
+ * Weights are whole numbers, so the distribution is reproduced exactly.
+ */
+final class AliasTable {
+    /**
+     * Chance of keeping each column, out of total.
+     */
+    private final long[] keep;
+    /**
+     * Outcome used when a column is not kept.
+     */
+    private final int[] alias;
+    /**
+     * Sum of all the weights, the scale of keep.
+     */
+    private final long total;
+
+    /**
+     * Builds the table.
+     * @param weights Weight of each outcome, none negative and at least one above 0.
+     */
+    AliasTable(int[] weights) {
+        int n = weights.length;
+        keep = new long[n];
+        alias = new int[n];
+        long sum = 0;
+        for (int w : weights) {
+            if (w < 0) {
+                throw new IllegalArgumentException("weights cannot be negative");
+            }
+            sum += w;
+        }
+        if (sum == 0) {
+            throw new IllegalArgumentException("at least one weight must be above 0");
+        }
+        total = sum;
+        // Scaled so an average column holds exactly total.
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int numSmall = 0;
+        int numLarge = 0;
+        for (int i = 0; i < n; ++i) {
+            keep[i] = (long) weights[i] * n;
+            alias[i] = i;
+            if (keep[i] < total) {
+                small[numSmall++] = i;
+            } else {
+                large[numLarge++] = i;
+            }
+        }
+        while (numSmall > 0 && numLarge > 0) {
+            int s = small[--numSmall];
+            int l = large[--numLarge];
+            alias[s] = l;
+            keep[l] -= total - keep[s];
+            if (keep[l] < total) {
+                small[numSmall++] = l;
+            } else {
+                large[numLarge++] = l;
+            }
+        }
+        while (numLarge > 0) { // Only full columns are left.
+            keep[large[--numLarge]] = total;
+        }
+    }
+
+    /**
+     * Returns the number of outcomes.
+     * @return The number of outcomes.
+     */
+    int size() {
+        return keep.length;
+    }
+
+    /**
+     * Draws one outcome.
+     * @param dice The dice rolled.
+     * @return The index of the outcome, weighted as given to the constructor.
+     */
+    int sample(Dice dice) {
+        int column = dice.nextIndex(keep.length);
+        if (dice.nextLong(total) < keep[column]) {
+            return column;
+        }
+        return alias[column];
+    }
+}
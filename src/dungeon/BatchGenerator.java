@@ -0,0 +1,256 @@
+/**
+ * Read the README.md for more details.
+ * @author Julian Lau
+ */
+package dungeon;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Generates many dungeons without a display, spread over a pool of worker threads.
+ * Dungeon i is rolled from seed + i, so a run can be split over several machines
+ * by giving each one its own seed range.
+ *
+ * With --window=N each dungeon is streamed through a StreamingGenerator instead: spaces are
+ * written as text as soon as they are made, and at most N unmatched doors are held, so a
+ * dungeon of any size fits in memory. Streamed dungeons are linked differently, so they are
+ * not the same dungeons as unstreamed ones with the same seed.
+ *
+ * Usage: java -cp build:lib/dnd-A4.jar dungeon.BatchGenerator [--count=N] [--chambers=N]
+ * [--seed=N] [--threads=N] [--out=DIR] [--format=binary|text|both] [--window=N]
+ */
+public final class BatchGenerator {
+    /**
+     * Printed when the arguments are wrong.
+     */
+    private static final String USAGE = "Usage: dungeon.BatchGenerator [--count=N] [--chambers=N] [--seed=N]"
+            + " [--threads=N] [--out=DIR] [--format=binary|text|both] [--window=N]";
+    /**
+     * Number of dungeons generated.
+     */
+    private int count = 1;
+    /**
+     * Number of chambers in each dungeon.
+     */
+    private int chambers = 5;
+    /**
+     * Seed of the first dungeon.
+     */
+    private long firstSeed;
+    /**
+     * Number of worker threads.
+     */
+    private int threads = Runtime.getRuntime().availableProcessors();
+    /**
+     * Folder the dungeons are written to.
+     */
+    private Path outDir = Paths.get("dungeons");
+    /**
+     * True if the dungeons are saved as DungeonFile files.
+     */
+    private boolean binary = true;
+    /**
+     * True if the dungeons are saved as text descriptions.
+     */
+    private boolean text;
+    /**
+     * Maximum number of unmatched doors held while streaming a dungeon, or 0 to generate it whole.
+     */
+    private int window;
+
+    /**
+     * Reads the options.
+     * @param args The command line arguments.
+     * @throws IllegalArgumentException If an option is unknown or its value is not valid.
+     */
+    public BatchGenerator(String[] args) {
+        for (String arg : args) {
+            int split = arg.indexOf('=');
+            if (!arg.startsWith("--") || split < 0) {
+                throw new IllegalArgumentException("Bad option " + arg);
+            }
+            setOption(arg.substring(2, split), arg.substring(split + 1));
+        }
+        if (count < 1 || chambers < 1 || threads < 1) {
+            throw new IllegalArgumentException("count, chambers and threads must be at least 1");
+        }
+        if (window > 0 && binary) {
+            throw new IllegalArgumentException("--window streams text only, add --format=text");
+        }
+    }
+
+    /**
+     * Sets one option.
+     * @param name The option name, without the leading dashes.
+     * @param value The option value.
+     * @throws IllegalArgumentException If the option is unknown or its value is not valid.
+     */
+    private void setOption(String name, String value) {
+        switch (name) {
+            case "count":
+                count = Integer.parseInt(value);
+                break;
+            case "chambers":
+                chambers = Integer.parseInt(value);
+                break;
+            case "seed":
+                firstSeed = Long.parseLong(value);
+                break;
+            case "threads":
+                threads = Integer.parseInt(value);
+                break;
+            case "out":
+                outDir = Paths.get(value);
+                break;
+            case "window":
+                window = Integer.parseInt(value);
+                if (window < 1) {
+                    throw new IllegalArgumentException("window must be at least 1");
+                }
+                break;
+            case "format":
+                binary = value.equals("binary") || value.equals("both");
+                text = value.equals("text") || value.equals("both");
+                if (!binary && !text) {
+                    throw new IllegalArgumentException("Bad format " + value);
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown option --" + name);
+        }
+    }
+
+    /**
+     * Generates and writes every dungeon.
+     * @return The time taken to generate each dungeon, in nanoseconds, in seed order.
+     * @throws IOException If a dungeon cannot be written.
+     * @throws InterruptedException If the run is interrupted.
+     */
+    public long[] run() throws IOException, InterruptedException {
+        Files.createDirectories(outDir);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Long>> results = new ArrayList<Future<Long>>(count);
+            for (int i = 0; i < count; ++i) {
+                long seed = firstSeed + i;
+                results.add(pool.submit(() -> generate(seed)));
+            }
+            long[] latencies = new long[count];
+            for (int i = 0; i < count; ++i) {
+                latencies[i] = results.get(i).get();
+            }
+            return latencies;
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+            throw new IllegalStateException(ex.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Generates one dungeon and writes it out.
+     * @param seed The seed of the dungeon.
+     * @return The time taken to generate it, not counting the writing, in nanoseconds.
+     * @throws IOException If the dungeon cannot be written.
+     */
+    private long generate(long seed) throws IOException {
+        if (window > 0) {
+            return stream(seed);
+        }
+        long start = System.nanoTime();
+        Generator generator = new Generator(seed);
+        generator.createChambers(chambers);
+        generator.setAvailableChambers();
+        generator.assignChambers();
+        generator.createPassages();
+        long elapsed = System.nanoTime() - start;
+        if (binary) {
+            DungeonFile.save(generator, outDir.resolve("dungeon-" + seed + ".dungeon"));
+        }
+        if (text) {
+            try (Writer writer = Files.newBufferedWriter(outDir.resolve("dungeon-" + seed + ".txt"), StandardCharsets.UTF_8)) {
+                DescriptionRenderer.writeDungeon(generator, writer);
+            }
+        }
+        return elapsed;
+    }
+
+    /**
+     * Streams one dungeon to a text file, writing each space as it is made.
+     * @param seed The seed of the dungeon.
+     * @return The time taken to generate and write it, which cannot be told apart, in nanoseconds.
+     * @throws IOException If the dungeon cannot be written.
+     */
+    private long stream(long seed) throws IOException {
+        long start = System.nanoTime();
+        try (Writer writer = Files.newBufferedWriter(outDir.resolve("dungeon-" + seed + ".txt"), StandardCharsets.UTF_8)) {
+            new StreamingGenerator(new Dice(seed), window).generate(chambers, DescriptionRenderer.streamTo(writer));
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Returns a percentile of sorted values, by the nearest rank.
+     * @param sorted The values, sorted.
+     * @param percent The percentile, from 0 to 100.
+     * @return The value at that percentile.
+     */
+    static long percentile(long[] sorted, double percent) {
+        int rank = (int) Math.ceil(percent / 100 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+
+    /**
+     * Runs a batch and prints the throughput, latency and generation metrics.
+     * @param args The options, see the class description.
+     */
+    public static void main(String[] args) {
+        BatchGenerator batch;
+        try {
+            batch = new BatchGenerator(args);
+        } catch (IllegalArgumentException ex) { // Also catches numbers that do not parse.
+            System.err.println(ex.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+        GenerationMetrics.register();
+        try {
+            long start = System.nanoTime();
+            long[] latencies = batch.run();
+            double seconds = (System.nanoTime() - start) / 1e9;
+            Arrays.sort(latencies);
+            System.out.printf("Generated %d dungeons of %d chambers on %d threads in %.3f s%n",
+                    batch.count, batch.chambers, batch.threads, seconds);
+            System.out.printf("Throughput: %.1f dungeons/s%n", batch.count / seconds);
+            System.out.printf("Generation latency: p50 %.3f ms, p99 %.3f ms, max %.3f ms%n",
+                    percentile(latencies, 50) / 1e6, percentile(latencies, 99) / 1e6,
+                    latencies[latencies.length - 1] / 1e6);
+            System.out.print(GenerationMetrics.get().dump());
+        } catch (IOException ex) {
+            System.err.println("Could not write the dungeons: " + ex.getMessage());
+            System.exit(1);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            System.exit(1);
+        }
+    }
+}
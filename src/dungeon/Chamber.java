@@ -4,18 +4,68 @@
  */
 package dungeon;
 
-import java.util.ArrayList;
-import dnd.exceptions.NotProtectedException;
-import dnd.exceptions.UnusualShapeException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import dnd.models.ChamberContents;
 import dnd.models.ChamberShape;
 import dnd.models.Monster;
 import dnd.models.Treasure;
 import dnd.models.Stairs;
 import dnd.models.Trap;
-import dnd.die.D20;
 
 public class Chamber extends Space {
+    /**
+     * Lowest exit table roll giving 1, 2, 3 and 4 exits, used in place of the library's own d4 re-roll.
+     */
+    private static final int[] EXIT_ROLLS = {1, 4, 7, 10};
+    /**
+     * Contents table roll every generated chamber uses (monster and treasure).
+     */
+    private static final int CONTENTS_ROLL = 15;
+    /**
+     * Shape table roll of each allowed shape and exit combination.
+     */
+    private static final int[] SHAPE_OUTCOME_ROLLS;
+    /**
+     * Exit table roll of each allowed shape and exit combination.
+     */
+    private static final int[] EXIT_OUTCOME_ROLLS;
+    /**
+     * Picks a shape and exit combination with the chance it had of coming up in the re-roll loop.
+     */
+    private static final AliasTable SHAPE_TABLE;
+
+    static {
+        // Every d20 shape roll and exit roll, with the d4 on exit rolls 16-20 folded into rolls 1, 4, 7 and 10.
+        // Weights are out of 20 * 20 * 4. Only square and rectangle shapes with 2-4 exits are kept.
+        int[] shapeRolls = new int[20 * 15];
+        int[] exitRolls = new int[20 * 15];
+        int[] weights = new int[20 * 15];
+        int n = 0;
+        for (int shapeRoll = 1; shapeRoll <= 20; ++shapeRoll) {
+            for (int exitRoll = 1; exitRoll <= 15; ++exitRoll) {
+                ChamberShape shape = ChamberShape.selectChamberShape(shapeRoll);
+                shape.setNumExits(exitRoll);
+                if (isAllowedShape(shape)) {
+                    int weight = 4;
+                    for (int k : EXIT_ROLLS) {
+                        if (k == exitRoll) {
+                            weight += 5; // d20 rolls 16-20, then a d4 landing here.
+                        }
+                    }
+                    shapeRolls[n] = shapeRoll;
+                    exitRolls[n] = exitRoll;
+                    weights[n] = weight;
+                    ++n;
+                }
+            }
+        }
+        SHAPE_OUTCOME_ROLLS = Arrays.copyOf(shapeRolls, n);
+        EXIT_OUTCOME_ROLLS = Arrays.copyOf(exitRolls, n);
+        SHAPE_TABLE = new AliasTable(Arrays.copyOf(weights, n));
+    }
     /**
      * Stores information about chamber shape and size.
      */
@@ -24,6 +74,10 @@ public class Chamber extends Space {
      * Stores information about chamber contents.
      */
     private ChamberContents chamberContents;
+    /**
+     * The chamber contents, classified once.
+     */
+    private ContentsType contentsType;
     /**
      * Stores information about chamber monster.
      */
@@ -37,36 +91,62 @@ public class Chamber extends Space {
      */
     private Stairs stairs;
     /**
-     * Stores all the monsters in the chamber.
+     * The monsters and treasure in the chamber. Replaced, never changed, on every edit,
+     * so readers on other threads always see a whole snapshot.
      */
-    private ArrayList<Monster> monsterList;
+    private volatile SpaceContents held = SpaceContents.EMPTY;
     /**
-     * Stores all the treasure in the chamber.
+     * Stores all the doors in the chamber. Copied on write, so it can be read while doors are added.
      */
-    private ArrayList<Treasure> treasureList;
+    private List<Door> doorList;
     /**
-     * Stores all the doors in the chamber.
+     * The last generated description and the contents it was generated from.
      */
-    private ArrayList<Door> doorList;
+    private volatile SpaceDescription description;
     /**
-     * Description of the chamber.
+     * Dice used to randomize the chamber and its doors.
      */
-    private String description;
+    private Dice dice;
 
     /**
      * Chamber constructor.
      */
     public Chamber() {
+        this(new Dice());
+    }
+
+    /**
+     * Chamber constructor that rolls from the given dice.
+     * @param theDice The dice used to randomize the chamber.
+     */
+    public Chamber(Dice theDice) {
+        dice = theDice;
         chamberContents = new ChamberContents();
         monster = new Monster();
         trap = new Trap();
         stairs = new Stairs();
-        monsterList = new ArrayList<Monster>();
-        treasureList = new ArrayList<Treasure>();
-        doorList = new ArrayList<Door>();
-        description = "";
+        doorList = new CopyOnWriteArrayList<Door>();
         randomizeChamber();
         exitsToDoors();
+        GenerationMetrics.get().chamberCreated(doorList.size());
+    }
+
+    /**
+     * Rebuilds a saved chamber from its parts. The doors, monsters and treasure are added afterwards.
+     * @param shape The chamber shape.
+     * @param contents The chamber contents.
+     * @param theTrap The chamber trap.
+     * @param theStairs The chamber stairs.
+     * @param theMonster The chamber monster.
+     */
+    Chamber(ChamberShape shape, ChamberContents contents, Trap theTrap, Stairs theStairs, Monster theMonster) {
+        chamberShape = shape;
+        chamberContents = contents;
+        contentsType = ContentsType.of(contents.getDescription());
+        trap = theTrap;
+        stairs = theStairs;
+        monster = theMonster;
+        doorList = new CopyOnWriteArrayList<Door>();
     }
 
     /**
@@ -85,32 +165,106 @@ public class Chamber extends Space {
         return chamberShape.getWidth();
     }
 
+    /**
+     * Returns the chamber shape.
+     * @return The chamber shape.
+     */
+    ChamberShape getChamberShape() {
+        return chamberShape;
+    }
+
+    /**
+     * Returns the chamber contents.
+     * @return The chamber contents.
+     */
+    ChamberContents getChamberContents() {
+        return chamberContents;
+    }
+
+    /**
+     * Returns what the chamber contains.
+     * @return The classified chamber contents.
+     */
+    ContentsType getContentsType() {
+        return contentsType;
+    }
+
+    /**
+     * Returns the chamber trap.
+     * @return The chamber trap.
+     */
+    Trap getTrap() {
+        return trap;
+    }
+
+    /**
+     * Returns the chamber stairs.
+     * @return The chamber stairs.
+     */
+    Stairs getStairs() {
+        return stairs;
+    }
+
+    /**
+     * Returns the chamber monster.
+     * @return The chamber monster.
+     */
+    Monster getMonster() {
+        return monster;
+    }
+
+    /**
+     * Returns an exit table roll that gives the shape exactly the given number of exits.
+     * @param shape The chamber shape; shapes over 600 square ft. get one extra exit from the table.
+     * @param numExits Number of exits, from 1-5.
+     * @return The roll to pass to ChamberShape.setNumExits.
+     */
+    static int exitRoll(ChamberShape shape, int numExits) {
+        if (shape.getArea() > 600) {
+            return EXIT_ROLLS[numExits - 2];
+        }
+        return EXIT_ROLLS[numExits - 1];
+    }
+
     /**
      * Randomizes all aspects of the chamber. The shape has to be square or rectangle.
      */
     private void randomizeChamber() {
-        D20 d20 = new D20();
-        chamberShape = ChamberShape.selectChamberShape(d20.roll());
-        while (chamberShape.getNumExits() > 4 || chamberShape.getNumExits() < 2 || (!(chamberShape.getShape().contains("Square")) && !(chamberShape.getShape().contains("Rectangle")))) {
-            chamberShape = ChamberShape.selectChamberShape(d20.roll());
-        }
+        chamberShape = selectShape();
         generateContents();
-        generateTreasure(d20.roll());
-        monster.setType(((d20.roll() * d20.roll()) % 99) + 1); //# from 1-100.
-        trap.chooseTrap(d20.roll());
-        stairs.setType(d20.roll());
+        generateTreasure(dice.d20());
+        monster.setType(((dice.d20() * dice.d20()) % 99) + 1); //# from 1-100.
+        trap.chooseTrap(dice.d20());
+        stairs.setType(dice.d20());
+    }
+
+    /**
+     * Checks if a shape can be used for a chamber: a square or rectangle with 2-4 exits.
+     * @param shape The chamber shape.
+     * @return True if the shape is allowed.
+     */
+    private static boolean isAllowedShape(ChamberShape shape) {
+        return shape.getNumExits() >= 2 && shape.getNumExits() <= 4
+                && (shape.getShape().contains("Square") || shape.getShape().contains("Rectangle"));
+    }
+
+    /**
+     * Selects an allowed chamber shape in a single draw, instead of re-rolling until one comes up.
+     * @return The selected chamber shape.
+     */
+    private ChamberShape selectShape() {
+        int k = SHAPE_TABLE.sample(dice);
+        ChamberShape shape = ChamberShape.selectChamberShape(SHAPE_OUTCOME_ROLLS[k]);
+        shape.setNumExits(EXIT_OUTCOME_ROLLS[k]);
+        return shape;
     }
 
     /**
-     * Ensures contents does not contain roll 15.
+     * Sets the contents, which is always roll 15 (monster and treasure).
      */
     private void generateContents() {
-        D20 d20 = new D20();
-        int roll = d20.roll();
-        while (roll != 15) {
-            roll = d20.roll();
-        }
-        chamberContents.chooseContents(roll);
+        chamberContents.chooseContents(CONTENTS_ROLL);
+        contentsType = ContentsType.of(chamberContents.getDescription());
     }
 
     /**
@@ -118,60 +272,92 @@ public class Chamber extends Space {
      * @param roll An int containing the roll for treasure.
      */
     private void generateTreasure(int roll) {
-        if (chamberContents.getDescription() == "monster and treasure" || chamberContents.getDescription() == "treasure") {
+        if (contentsType.hasTreasure()) {
             Treasure t = new Treasure();
             t.chooseTreasure(roll);
             t.setContainer(roll);
-            treasureList.add(t);
+            held = held.withTreasure(t);
         }
     }
 
+    /**
+     * Replaces the monsters and treasure with those of a dungeon state.
+     * @param newContents The new contents.
+     */
+    synchronized void setContents(SpaceContents newContents) {
+        held = newContents;
+    }
+
+    /**
+     * Returns the monsters and treasure as one snapshot that never changes.
+     * @return The current contents.
+     */
+    SpaceContents getContents() {
+        return held;
+    }
+
     /**
      * Adds a monster to the chamber.
      * @param theMonster Adds a mosnter to the list of treasures.
      */
-    public void addMonster(Monster theMonster) {
-        monsterList.add(theMonster);
+    public synchronized void addMonster(Monster theMonster) {
+        held = held.withMonster(theMonster);
     }
 
     /**
      * Removes the mosnter from th monster list.
      * @param monsterNum The index of the monster.
      */
-    public void removeMonster(int monsterNum) {
-        monsterList.remove(monsterNum);
+    public synchronized void removeMonster(int monsterNum) {
+        held = held.withoutMonster(monsterNum);
+    }
+
+    /**
+     * Removes several monsters in one pass.
+     * @param monsterNums The indexes of the monsters, in any order.
+     */
+    public synchronized void removeMonster(int[] monsterNums) {
+        held = held.withoutMonster(monsterNums);
     }
 
     /**
      * Returns all the monsters in the chamber.
-     * @return array list of monsters.
+     * @return Read-only list of monsters, a snapshot that later edits do not change.
      */
-    public ArrayList<Monster> getMonsterList() {
-        return monsterList;
+    public List<Monster> getMonsterList() {
+        return held.getMonsterList();
     }
 
     /**
      * Adds a treasure to the chamber.
      * @param theTreasure Adds a treasure to the list of treasures.
      */
-    public void addTreasure(Treasure theTreasure) {
-        treasureList.add(theTreasure);
+    public synchronized void addTreasure(Treasure theTreasure) {
+        held = held.withTreasure(theTreasure);
     }
 
     /**
      * Removes a treasure from the chamber.
      * @param treasureNum The index of the treasure.
      */
-    public void removeTreasure(int treasureNum) {
-        treasureList.remove(treasureNum);
+    public synchronized void removeTreasure(int treasureNum) {
+        held = held.withoutTreasure(treasureNum);
+    }
+
+    /**
+     * Removes several treasures in one pass.
+     * @param treasureNums The indexes of the treasures, in any order.
+     */
+    public synchronized void removeTreasure(int[] treasureNums) {
+        held = held.withoutTreasure(treasureNums);
     }
 
     /**
      * Returns all the treasure in the chamber.
-     * @return array list of treasures.
+     * @return Read-only list of treasures, a snapshot that later edits do not change.
      */
-    public ArrayList<Treasure> getTreasureList() {
-        return treasureList;
+    public List<Treasure> getTreasureList() {
+        return held.getTreasureList();
     }
 
     /**
@@ -185,10 +371,10 @@ public class Chamber extends Space {
 
     /**
      * Returns all the doors in the chamber.
-     * @return Array list of doors.
+     * @return Read-only list of doors.
      */
-    public ArrayList<Door> getDoorList() {
-        return doorList;
+    public List<Door> getDoorList() {
+        return Collections.unmodifiableList(doorList);
     }
 
     /**
@@ -196,80 +382,23 @@ public class Chamber extends Space {
      */
     public void exitsToDoors() {
         for (int i = 0; i < chamberShape.getNumExits(); ++i) {
-            addDoor(new Door());
+            addDoor(new Door(dice));
         }
     }
 
     /**
-     * Generates and returns the description of the chamber.
+     * Returns the description of the chamber, generating it only if the chamber changed since the last call.
      * @return String of the full chamber description.
      */
     @Override
     public String getDescription() {
-        getChamberShapeDescription();
-        //getChamberContentsDescription();
-        getTrapDescription();
-        getMonsterDescription();
-        getStairsDescription();
-        getTreasureDescription();
-        return description; //Returning the final formatted string.
-    }
-
-    /**
-     * Concats the description of the chamber shape & exits to the description.
-     */
-    private void getChamberShapeDescription() {
-        description = "The chamber is " + chamberShape.getShape() + " shape and is " + chamberShape.getArea() + " square ft." + "\n";
-        try {
-            description = description + "The chamber has a length of " + chamberShape.getLength() + " and a width of " + chamberShape.getWidth() + ".\n";
-        } catch (UnusualShapeException ex) { //Unusual chamber shapes have no length/width.
-            description = description + "The chamber has no length and width." + "\n";
-        }
-        description = description + "The number of exits (doors) is/are " + chamberShape.getNumExits() + ".\n";
-    }
-
-    /**
-     * Concats the description of the chamber trap to the description.
-     */
-    private void getTrapDescription() {
-        if (chamberContents.getDescription() == "trap") {
-            description = description + "The trap is " + trap.getDescription() + ".\n";
-        }
-    }
-
-    /**
-     * Concats the description of the chamber monster to the description.
-     */
-    private void getMonsterDescription() {
-        for (int i = 0; i < monsterList.size(); ++i) {
-            if (chamberContents.getDescription() == "monster and treasure" || chamberContents.getDescription() == "monster" || chamberContents.getDescription() == "monster only") {
-                description = description + "The monsters are " + monsterList.get(i).getMinNum() + " to " + monsterList.get(i).getMaxNum() + " " + monsterList.get(i).getDescription() + ".\n";
-            }
-        }
-    }
-
-    /**
-     * Concats the description of the chamber stairs to the description.
-     */
-    private void getStairsDescription() {
-        if (chamberContents.getDescription() == "stairs") {
-            description = description + "The stairs go " + stairs.getDescription() + ".\n";
-        }
-    }
-
-    /**
-     * Concats the description of the chamber treasure to the description.
-     */
-    private void getTreasureDescription() {
-        for (int i = 0; i < treasureList.size(); ++i) {
-            if (chamberContents.getDescription() == "monster and treasure" || chamberContents.getDescription() == "treasure") {
-                description = description + "The treasure is " + treasureList.get(i).getDescription() + " contained inside " + treasureList.get(i).getContainer() + ".\n";
-                try {
-                    description = description + "The treasure is guarded by " + treasureList.get(i).getProtection() + ".\n";
-                } catch (NotProtectedException ex2) { //Treasure is not guarded
-                    description = description + "The treasure is not guarded.\n";
-                }
-            }
+        SpaceContents current = held;
+        SpaceDescription cached = description;
+        if (cached != null && cached.isOf(current)) {
+            return cached.getText();
         }
+        String text = DescriptionRenderer.describe(this, current);
+        description = new SpaceDescription(current, text);
+        return text;
     }
 }
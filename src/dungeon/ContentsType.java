@@ -0,0 +1,77 @@
+/**
+ * Read the README.md for more details.
+ * @author Julian Lau
+ */
+package dungeon;
+
+/**
+ * What a chamber contains, classified once from the dnd ChamberContents text.
+ */
+public enum ContentsType {
+    /**
+     * Nothing in the chamber.
+     */
+    EMPTY,
+    /**
+     * Monsters only.
+     */
+    MONSTER,
+    /**
+     * Monsters guarding treasure.
+     */
+    MONSTER_AND_TREASURE,
+    /**
+     * Stairs.
+     */
+    STAIRS,
+    /**
+     * A trap.
+     */
+    TRAP,
+    /**
+     * Treasure only.
+     */
+    TREASURE;
+
+    /**
+     * Classifies a ChamberContents description.
+     * @param description The text returned by ChamberContents.getDescription().
+     * @return The matching type, EMPTY if it is not recognised.
+     */
+    public static ContentsType of(String description) {
+        if (description == null) {
+            return EMPTY;
+        }
+        switch (description) {
+            case "monster":
+            case "monster only":
+                return MONSTER;
+            case "monster and treasure":
+                return MONSTER_AND_TREASURE;
+            case "stairs":
+                return STAIRS;
+            case "trap":
+                return TRAP;
+            case "treasure":
+                return TREASURE;
+            default:
+                return EMPTY;
+        }
+    }
+
+    /**
+     * Returns true if monsters in the chamber are described.
+     * @return True for MONSTER and MONSTER_AND_TREASURE.
+     */
+    public boolean hasMonster() {
+        return this == MONSTER || this == MONSTER_AND_TREASURE;
+    }
+
+    /**
+     * Returns true if treasure in the chamber is described.
+     * @return True for TREASURE and MONSTER_AND_TREASURE.
+     */
+    public boolean hasTreasure() {
+        return this == TREASURE || this == MONSTER_AND_TREASURE;
+    }
+}
@@ -0,0 +1,478 @@
+/**
+ * Read the README.md for more details.
+ * @author Julian Lau
+ */
+package dungeon;
+
+import dnd.exceptions.NotProtectedException;
+import dnd.exceptions.UnusualShapeException;
+import dnd.models.ChamberShape;
+import dnd.models.Monster;
+import dnd.models.Treasure;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Builds every description in the dungeon package. Text is appended into a
+ * builder from fixed phrases, so a description costs one String at most and
+ * writeDungeon streams a whole dungeon to a Writer without creating any.
+ */
+public final class DescriptionRenderer {
+    /**
+     * Starting size of the builders.
+     */
+    private static final int INITIAL_CAPACITY = 512;
+    /**
+     * One reusable builder per thread for the describe methods.
+     */
+    private static final ThreadLocal<StringBuilder> BUILDER = ThreadLocal.withInitial(() -> new StringBuilder(INITIAL_CAPACITY));
+
+    //====================================================
+    // Phrases.
+    //====================================================
+
+    /**
+     * Opens the shape sentence, followed by the shape name.
+     */
+    private static final String SHAPE_START = "The chamber is ";
+    /**
+     * Joins the shape name to the area.
+     */
+    private static final String SHAPE_AREA = " shape and is ";
+    /**
+     * Closes the shape sentence after the area.
+     */
+    private static final String SHAPE_END = " square ft.\n";
+    /**
+     * Opens the size sentence, followed by the length in feet.
+     */
+    private static final String LENGTH = "The chamber has a length of ";
+    /**
+     * Joins the length to the width in the size sentence.
+     */
+    private static final String WIDTH = " and a width of ";
+    /**
+     * Whole size sentence for unusual shapes, which have no length or width.
+     */
+    private static final String NO_SIZE = "The chamber has no length and width.\n";
+    /**
+     * Opens the exit sentence, followed by the number of doors.
+     */
+    private static final String EXITS = "The number of exits (doors) is/are ";
+    /**
+     * Opens the sentence describing a chamber trap.
+     */
+    private static final String TRAP = "The trap is ";
+    /**
+     * Opens the sentence describing chamber stairs.
+     */
+    private static final String STAIRS = "The stairs go ";
+    /**
+     * Opens a monster sentence, followed by the least number of monsters.
+     */
+    private static final String MONSTERS = "The monsters are ";
+    /**
+     * Joins the least and the most number of monsters.
+     */
+    private static final String TO = " to ";
+    /**
+     * Opens a treasure sentence, followed by the treasure.
+     */
+    private static final String TREASURE = "The treasure is ";
+    /**
+     * Joins a treasure to its container.
+     */
+    private static final String CONTAINED = " contained inside ";
+    /**
+     * Opens the sentence naming what guards the treasure.
+     */
+    private static final String GUARDED = "The treasure is guarded by ";
+    /**
+     * Whole sentence for treasure nothing guards.
+     */
+    private static final String NOT_GUARDED = "The treasure is not guarded.\n";
+    /**
+     * Whole description of an archway; nothing else about the door is described.
+     */
+    private static final String ARCHWAY = "The door is an archway.\n";
+    /**
+     * Whole sentence for an open door.
+     */
+    private static final String OPEN = "The door is open.\n";
+    /**
+     * Whole sentence for a closed door.
+     */
+    private static final String CLOSED = "The door is closed.\n";
+    /**
+     * Whole sentence for a locked door.
+     */
+    private static final String LOCKED = "The door is locked.\n";
+    /**
+     * Whole sentence for an unlocked door.
+     */
+    private static final String UNLOCKED = "The door is unlocked.\n";
+    /**
+     * Opens the sentence for a trapped door, followed by the trap.
+     */
+    private static final String TRAPPED = "The door is trapped with a ";
+    /**
+     * Whole sentence for a door without a trap.
+     */
+    private static final String NOT_TRAPPED = "The door is not trapped.\n";
+    /**
+     * Wandering monster section phrase.
+     */
+    private static final String WANDERING = "Wandering Monster (passage continues straight for 10 ft).\n";
+    /**
+     * End of a sentence.
+     */
+    private static final String END = ".\n";
+
+    /**
+     * Utility class, not created.
+     */
+    private DescriptionRenderer() {
+    }
+
+    //====================================================
+    // Single descriptions.
+    //====================================================
+
+    /**
+     * Returns the description of a chamber.
+     * @param chamber The chamber.
+     * @return The description.
+     */
+    public static String describe(Chamber chamber) {
+        return describe(chamber, chamber.getContents());
+    }
+
+    /**
+     * Returns the description of a chamber holding the given monsters and treasure.
+     * @param chamber The chamber.
+     * @param contents A snapshot of its monsters and treasure.
+     * @return The description.
+     */
+    static String describe(Chamber chamber, SpaceContents contents) {
+        StringBuilder out = builder();
+        appendChamber(chamber, contents, out);
+        return out.toString();
+    }
+
+    /**
+     * Returns the description of a passage.
+     * @param passage The passage.
+     * @return The description.
+     */
+    public static String describe(Passage passage) {
+        return describe(passage, passage.getContents());
+    }
+
+    /**
+     * Returns the description of a passage holding the given monsters and treasure.
+     * @param passage The passage.
+     * @param contents A snapshot of its monsters and treasure.
+     * @return The description.
+     */
+    static String describe(Passage passage, SpaceContents contents) {
+        StringBuilder out = builder();
+        appendPassage(passage, contents, out);
+        return out.toString();
+    }
+
+    /**
+     * Returns the description of a door.
+     * @param door The door.
+     * @return The description.
+     */
+    public static String describe(Door door) {
+        StringBuilder out = builder();
+        appendDoor(door, out);
+        return out.toString();
+    }
+
+    /**
+     * Returns the description of a passage section holding a wandering monster.
+     * @param monster The monster.
+     * @return The description, without a trailing newline.
+     */
+    public static String describeWanderingMonster(Monster monster) {
+        StringBuilder out = builder();
+        out.append(WANDERING);
+        appendMonster(monster, out);
+        out.setLength(out.length() - 1); // Section descriptions end without a newline.
+        return out.toString();
+    }
+
+    /**
+     * Returns this thread's builder, emptied.
+     * @return The builder.
+     */
+    private static StringBuilder builder() {
+        StringBuilder out = BUILDER.get();
+        out.setLength(0);
+        return out;
+    }
+
+    //====================================================
+    // Appending.
+    //====================================================
+
+    /**
+     * Appends the description of a chamber.
+     * @param chamber The chamber.
+     * @param out The builder appended to.
+     */
+    public static void appendChamber(Chamber chamber, StringBuilder out) {
+        appendChamber(chamber, chamber.getContents(), out);
+    }
+
+    /**
+     * Appends the description of a chamber holding the given monsters and treasure.
+     * Reading the contents once keeps the text consistent while another thread edits the chamber.
+     * @param chamber The chamber.
+     * @param held A snapshot of its monsters and treasure.
+     * @param out The builder appended to.
+     */
+    private static void appendChamber(Chamber chamber, SpaceContents held, StringBuilder out) {
+        ChamberShape shape = chamber.getChamberShape();
+        ContentsType contents = chamber.getContentsType();
+        out.append(SHAPE_START).append(shape.getShape()).append(SHAPE_AREA).append(shape.getArea()).append(SHAPE_END);
+        try {
+            int length = shape.getLength();
+            int width = shape.getWidth();
+            out.append(LENGTH).append(length).append(WIDTH).append(width).append(END);
+        } catch (UnusualShapeException ex) { //Unusual chamber shapes have no length/width.
+            out.append(NO_SIZE);
+        }
+        out.append(EXITS).append(shape.getNumExits()).append(END);
+        if (contents == ContentsType.TRAP) {
+            out.append(TRAP).append(chamber.getTrap().getDescription()).append(END);
+        }
+        if (contents.hasMonster()) {
+            appendMonsters(held, out);
+        }
+        if (contents == ContentsType.STAIRS) {
+            out.append(STAIRS).append(chamber.getStairs().getDescription()).append(END);
+        }
+        if (contents.hasTreasure()) {
+            for (int i = 0; i < held.getNumTreasure(); ++i) {
+                Treasure t = held.getTreasure(i);
+                appendTreasure(t, out);
+                try {
+                    String protection = t.getProtection();
+                    out.append(GUARDED).append(protection).append(END);
+                } catch (NotProtectedException ex2) { //Treasure is not guarded
+                    out.append(NOT_GUARDED);
+                }
+            }
+        }
+    }
+
+    /**
+     * Appends the description of a passage.
+     * @param passage The passage.
+     * @param out The builder appended to.
+     */
+    public static void appendPassage(Passage passage, StringBuilder out) {
+        appendPassage(passage, passage.getContents(), out);
+    }
+
+    /**
+     * Appends the description of a passage holding the given monsters and treasure.
+     * @param passage The passage.
+     * @param held A snapshot of its monsters and treasure.
+     * @param out The builder appended to.
+     */
+    private static void appendPassage(Passage passage, SpaceContents held, StringBuilder out) {
+        List<PassageSection> sections = passage.getPassages();
+        for (int i = 0; i < sections.size(); ++i) {
+            out.append(sections.get(i).getDescription()).append('\n');
+        }
+        for (int i = 0; i < held.getNumTreasure(); ++i) {
+            appendTreasure(held.getTreasure(i), out);
+        }
+        appendMonsters(held, out);
+    }
+
+    /**
+     * Appends the description of a door.
+     * @param door The door.
+     * @param out The builder appended to.
+     */
+    public static void appendDoor(Door door, StringBuilder out) {
+        if (door.isArchway()) {
+            out.append(ARCHWAY);
+            return;
+        }
+        out.append(door.isOpen() ? OPEN : CLOSED);
+        out.append(door.isLocked() ? LOCKED : UNLOCKED);
+        if (door.isTrapped()) {
+            out.append(TRAPPED).append(door.getTrap().getDescription()).append(END);
+        } else {
+            out.append(NOT_TRAPPED);
+        }
+    }
+
+    /**
+     * Appends one line per monster.
+     * @param held The monsters and treasure of a space.
+     * @param out The builder appended to.
+     */
+    private static void appendMonsters(SpaceContents held, StringBuilder out) {
+        for (int i = 0; i < held.getNumMonsters(); ++i) {
+            appendMonster(held.getMonster(i), out);
+        }
+    }
+
+    /**
+     * Appends the line describing a monster.
+     * @param monster The monster.
+     * @param out The builder appended to.
+     */
+    private static void appendMonster(Monster monster, StringBuilder out) {
+        out.append(MONSTERS).append(monster.getMinNum()).append(TO).append(monster.getMaxNum()).append(' ').append(monster.getDescription()).append(END);
+    }
+
+    /**
+     * Appends the line describing a treasure and its container.
+     * @param treasure The treasure.
+     * @param out The builder appended to.
+     */
+    private static void appendTreasure(Treasure treasure, StringBuilder out) {
+        out.append(TREASURE).append(treasure.getDescription()).append(CONTAINED).append(treasure.getContainer()).append(END);
+    }
+
+    //====================================================
+    // Streaming.
+    //====================================================
+
+    /**
+     * Writes the description of every chamber, passage and door in the dungeon.
+     * Each space is rendered into one reused builder and copied out through one reused buffer.
+     * @param generator The dungeon.
+     * @param writer Receives the text.
+     * @throws IOException If the writer fails.
+     */
+    public static void writeDungeon(Generator generator, Writer writer) throws IOException {
+        StringBuilder out = new StringBuilder(INITIAL_CAPACITY);
+        char[] buffer = new char[INITIAL_CAPACITY];
+        for (int i = 0; i < generator.getChamberList().size(); ++i) {
+            Chamber chamber = generator.getChamberList().get(i);
+            out.setLength(0);
+            out.append("Chamber #").append(i + 1).append('\n');
+            appendChamber(chamber, out);
+            appendDoors(chamber.getDoorList(), out);
+            buffer = write(out, buffer, writer);
+        }
+        for (int i = 0; i < generator.getPassageList().size(); ++i) {
+            Passage passage = generator.getPassageList().get(i);
+            out.setLength(0);
+            out.append("Passage #").append(i + 1).append('\n');
+            appendPassage(passage, out);
+            appendDoors(passage.getDoors(), out);
+            buffer = write(out, buffer, writer);
+        }
+        writer.flush();
+    }
+
+    /**
+     * Appends every door of a space, numbered from 1.
+     * @param doors The doors.
+     * @param out The builder appended to.
+     */
+    private static void appendDoors(List<Door> doors, StringBuilder out) {
+        for (int k = 0; k < doors.size(); ++k) {
+            out.append("Door #").append(k + 1).append(":\n");
+            appendDoor(doors.get(k), out);
+        }
+        out.append('\n');
+    }
+
+    /**
+     * Returns a listener that writes each space of a streamed dungeon as soon as it is created,
+     * in the layout of writeDungeon. Passages arrive between chambers, so each one also names
+     * the two chambers it links.
+     * @param writer Receives the text. It is not flushed or closed.
+     * @return The listener. It throws UncheckedIOException if the writer fails.
+     */
+    public static DungeonListener streamTo(Writer writer) {
+        return new SpaceWriter(writer);
+    }
+
+    /**
+     * Writes streamed spaces through one reused builder and buffer, like writeDungeon.
+     */
+    private static final class SpaceWriter implements DungeonListener {
+        /**
+         * Receives the text.
+         */
+        private final Writer writer;
+        /**
+         * The builder each space is rendered into.
+         */
+        private final StringBuilder out = new StringBuilder(INITIAL_CAPACITY);
+        /**
+         * The buffer each space is copied out through.
+         */
+        private char[] buffer = new char[INITIAL_CAPACITY];
+
+        /**
+         * Creates a writer of streamed spaces.
+         * @param theWriter Receives the text.
+         */
+        SpaceWriter(Writer theWriter) {
+            writer = theWriter;
+        }
+
+        @Override
+        public void chamberCreated(int chamberNum, Chamber chamber) {
+            out.setLength(0);
+            out.append("Chamber #").append(chamberNum + 1).append('\n');
+            appendChamber(chamber, out);
+            appendDoors(chamber.getDoorList(), out);
+            flushSpace();
+        }
+
+        @Override
+        public void passageCreated(int passageNum, Passage passage, int chamberOne, int chamberTwo) {
+            out.setLength(0);
+            out.append("Passage #").append(passageNum + 1).append(" (Chamber #").append(chamberOne + 1)
+                    .append(" to Chamber #").append(chamberTwo + 1).append(")\n");
+            appendPassage(passage, out);
+            appendDoors(passage.getDoors(), out);
+            flushSpace();
+        }
+
+        /**
+         * Copies the rendered space to the writer.
+         */
+        private void flushSpace() {
+            try {
+                buffer = write(out, buffer, writer);
+            } catch (IOException ex) { // Listener methods cannot throw it.
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+
+    /**
+     * Copies the builder to the writer without creating a String.
+     * @param out The builder.
+     * @param buffer The copy buffer.
+     * @param writer The writer.
+     * @return The copy buffer, grown if it was too small.
+     * @throws IOException If the writer fails.
+     */
+    private static char[] write(StringBuilder out, char[] buffer, Writer writer) throws IOException {
+        char[] chars = buffer;
+        if (chars.length < out.length()) {
+            chars = new char[out.capacity()];
+        }
+        out.getChars(0, out.length(), chars, 0);
+        writer.write(chars, 0, out.length());
+        return chars;
+    }
+}
@@ -0,0 +1,134 @@
+/**
+ * Read the README.md for more details.
+ * @author Julian Lau
+ */
+package dungeon;
+
+import java.util.SplittableRandom;
+
+/**
+ * Seedable source of dice rolls shared by everything the generator builds.
+ * A single instance is not thread safe; give each worker its own split().
+ */
+public final class Dice {
+    /**
+     * The underlying random stream.
+     */
+    private final SplittableRandom random;
+
+    /**
+     * Creates dice with an unpredictable seed.
+     */
+    public Dice() {
+        random = new SplittableRandom();
+    }
+
+    /**
+     * Creates dice that always produce the same rolls for the same seed.
+     * @param seed The seed of the stream.
+     */
+    public Dice(long seed) {
+        random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Wraps an already created stream.
+     * @param source The stream to roll from.
+     */
+    private Dice(SplittableRandom source) {
+        random = source;
+    }
+
+    /**
+     * Rolls a die with the given number of sides.
+     * @param sides Number of sides of the die.
+     * @return A number from 1 to sides.
+     */
+    public int roll(int sides) {
+        return random.nextInt(sides) + 1;
+    }
+
+    /**
+     * Rolls a four sided die.
+     * @return A number from 1-4.
+     */
+    public int d4() {
+        return roll(4);
+    }
+
+    /**
+     * Rolls a ten sided die.
+     * @return A number from 1-10.
+     */
+    public int d10() {
+        return roll(10);
+    }
+
+    /**
+     * Rolls a twenty sided die.
+     * @return A number from 1-20.
+     */
+    public int d20() {
+        return roll(20);
+    }
+
+    /**
+     * Rolls a percentile die.
+     * @return A number from 1-100.
+     */
+    public int percentile() {
+        return roll(100);
+    }
+
+    /**
+     * Fills a block with twenty sided dice rolls in one pass.
+     * @param rolls Receives the rolls, each from 1-20.
+     */
+    public void d20(int[] rolls) {
+        for (int i = 0; i < rolls.length; ++i) {
+            rolls[i] = random.nextInt(20) + 1;
+        }
+    }
+
+    /**
+     * Returns a random index below bound.
+     * @param bound The exclusive upper bound.
+     * @return A number from 0 to bound - 1.
+     */
+    public int nextIndex(int bound) {
+        return random.nextInt(bound);
+    }
+
+    /**
+     * Returns a random long, used to seed other streams.
+     * @return A random long.
+     */
+    public long nextLong() {
+        return random.nextLong();
+    }
+
+    /**
+     * Returns a random long below bound.
+     * @param bound The exclusive upper bound.
+     * @return A number from 0 to bound - 1.
+     */
+    public long nextLong(long bound) {
+        return random.nextLong(bound);
+    }
+
+    /**
+     * Returns a random fraction.
+     * @return A number from 0 up to but not including 1.
+     */
+    public double nextDouble() {
+        return random.nextDouble();
+    }
+
+    /**
+     * Splits off an independent stream, for use by another thread or object.
+     * @return New dice that share no state with these.
+     */
+    public Dice split() {
+        return new Dice(random.split());
+    }
+}
@@ -6,10 +6,28 @@ package dungeon;
 
 import dnd.models.Trap;
 import java.util.ArrayList;
-import dnd.die.D10;
-import dnd.die.D20;
 
 public class Door {
+    /**
+     * Number of d20 rolls a door is made from: archway, open, locked, trapped and trap.
+     */
+    static final int ROLLS_PER_DOOR = 5;
+    /**
+     * d20 rolls that make an archway, 1 in 10 (a d10 roll of 1).
+     */
+    private static final boolean[] ARCHWAY_ROLLS = rollTable(1, 2);
+    /**
+     * d20 rolls that make the door open, 1 in 2 (a d10 roll of 1-5).
+     */
+    private static final boolean[] OPEN_ROLLS = rollTable(1, 10);
+    /**
+     * d20 rolls that make the door locked, about 1 in 6.
+     */
+    private static final boolean[] LOCKED_ROLLS = rollTable(1, 3);
+    /**
+     * d20 rolls that make the door trapped, 1 in 20.
+     */
+    private static final boolean[] TRAPPED_ROLLS = rollTable(1, 1);
 
     /**
      * The spaces connected to the door.
@@ -39,81 +57,103 @@ public class Door {
      * Indicates if the door is trapped.
      */
     private boolean trapped;
+    /**
+     * Dice used to randomize the door and its trap.
+     */
+    private Dice dice;
 
     /**
      * Door constructor. Creates a door with random values.
      */
     public Door() {
+        this(new Dice());
+    }
+
+    /**
+     * Door constructor. Creates a door with values rolled from the given dice.
+     * @param theDice The dice used to randomize the door.
+     */
+    public Door(Dice theDice) {
+        dice = theDice;
         spaces = new ArrayList<Space>();
         trap = new Trap();
-        randomizeDoor();
+        int[] rolls = new int[ROLLS_PER_DOOR];
+        dice.d20(rolls);
+        randomizeDoor(rolls, 0);
     }
 
     /**
-     * Randomly sets the characteristics of the door based on modified table 1 values.
-     */
-    private void randomizeDoor() {
-        D10 d10 = new D10();
-        D20 d20 = new D20();
-        int roll = d10.roll();
-        randomizeArchway(roll); // 1/10 chance its an archway
-        if (!isArchway()) {
-            roll = d10.roll();
-            randomizeOpen(roll); // 1/2 chance its open
-            roll = d20.roll();
-            randomizeLocked(roll); // 1/6 chance its locked
-            roll = d20.roll();
-            randomizeTrapped(roll); // 1/20 chance its trapped
-        }
+     * Door constructor. Creates a door from a block of rolls made by createDoors.
+     * @param theDice The dice used if the door is changed later.
+     * @param rolls The block of d20 rolls.
+     * @param at Index of this door's first roll in the block.
+     */
+    private Door(Dice theDice, int[] rolls, int at) {
+        dice = theDice;
+        spaces = new ArrayList<Space>();
+        trap = new Trap();
+        randomizeDoor(rolls, at);
     }
 
     /**
-     * Randomizes archway.
-     * @param roll The roll passed to determine the result.
+     * Creates many doors from one block of rolls.
+     * @param count Number of doors to be made.
+     * @param theDice The dice the block is rolled from.
+     * @return The doors.
      */
-    private void randomizeArchway(int roll) {
-        if (roll == 1) {
-            setArchway(true);
-        } else {
-            setArchway(false);
+    public static Door[] createDoors(int count, Dice theDice) {
+        int[] rolls = new int[count * ROLLS_PER_DOOR];
+        theDice.d20(rolls);
+        Door[] doors = new Door[count];
+        for (int i = 0; i < count; ++i) {
+            doors[i] = new Door(theDice, rolls, i * ROLLS_PER_DOOR);
         }
+        return doors;
     }
 
     /**
-     * Randomizes open.
-     * @param roll The roll passed to determine the result.
+     * Builds a lookup table marking a range of d20 rolls.
+     * @param first The first roll in the range.
+     * @param last The last roll in the range.
+     * @return Table indexed by roll, true for rolls in the range.
      */
-    private void randomizeOpen(int roll) {
-        if (roll == 1 || roll == 2 || roll == 3 || roll == 4 || roll == 5) {
-            setOpen(true);
-        } else {
-            setOpen(false);
+    private static boolean[] rollTable(int first, int last) {
+        boolean[] table = new boolean[21];
+        for (int roll = first; roll <= last; ++roll) {
+            table[roll] = true;
         }
+        return table;
     }
 
     /**
-     * Randomizes locked.
-     * @param roll The roll passed to determine the result.
+     * Rebuilds a saved door.
+     * @param theDice The dice used if the door is changed later.
+     * @param flags The archway, open, locked and trapped flags, in that order.
+     * @param theTrap The door trap.
      */
-    private void randomizeLocked(int roll) {
-        if (roll == 1 || roll == 2 || roll == 3) {
-            setLocked(true);
-            setOpen(false); //Locked doors need to be closed
-        } else {
-            setLocked(false);
-        }
+    Door(Dice theDice, boolean[] flags, Trap theTrap) {
+        dice = theDice;
+        spaces = new ArrayList<Space>();
+        trap = theTrap;
+        archway = flags[0];
+        open = flags[1];
+        locked = flags[2];
+        trapped = flags[3];
     }
 
     /**
-     * Randomizes trapped.
-     * @param roll The roll passed to determine the result.
+     * Sets the characteristics of the door from modified table 1, looking each roll up in its table.
+     * Archways are open, unlocked and not trapped, and locked doors are closed.
+     * @param rolls The block of d20 rolls.
+     * @param at Index of this door's first roll in the block.
      */
-    private void randomizeTrapped(int roll) {
-        if (roll == 1) {
-            setTrapped(true);
-        } else {
-            setTrapped(false);
-        }
+    private void randomizeDoor(int[] rolls, int at) {
+        archway = ARCHWAY_ROLLS[rolls[at]];
+        locked = !archway && LOCKED_ROLLS[rolls[at + 2]];
+        open = archway || (!locked && OPEN_ROLLS[rolls[at + 1]]);
+        trapped = !archway && TRAPPED_ROLLS[rolls[at + 3]];
+        trap.chooseTrap(rolls[at + 4]);
+        description = null;
     }
 
     /**
@@ -121,6 +161,7 @@ public class Door {
      * @param flag Sets archway to flag.
      */
     public void setArchway(boolean flag) {
+        description = null;
         archway = flag;
         if (flag) { //Archways are open and not trapped.
             setOpen(true);
@@ -134,6 +175,7 @@ public class Door {
      * @param flag Sets open to flag.
      */
     private void setOpen(boolean flag) {
+        description = null;
         if (isArchway()) { //Archways are always open.
             open = true;
         } else {
@@ -146,6 +188,7 @@ public class Door {
      * @param flag Sets locked to flag.
      */
     private void setLocked(boolean flag) {
+        description = null;
         locked = flag;
     }
 
@@ -154,12 +197,12 @@ public class Door {
      * @param flag Sets trapped to flag.
      */
     private void setTrapped(boolean flag) {
-        D20 d20 = new D20();
         if (flag) {
             setArchway(false);
         }
+        description = null;
         trapped = flag;
-        trap.chooseTrap(d20.roll());
+        trap.chooseTrap(dice.d20());
     }
 
     /**
@@ -170,11 +213,19 @@ public class Door {
         return archway;
     }
 
+    /**
+     * Returns the door trap.
+     * @return The door trap.
+     */
+    Trap getTrap() {
+        return trap;
+    }
+
     /**
      * Returns the value of open.
      * @return Returns the value of open.
      */
-    private boolean isOpen() {
+    boolean isOpen() {
         return open;
     }
 
@@ -182,7 +233,7 @@ public class Door {
      * Returns the value of locked.
      * @return Returns the value of locked.
      */
-    private boolean isLocked() {
+    boolean isLocked() {
         return locked;
     }
 
@@ -190,18 +241,10 @@ public class Door {
      * Returns the value of trapped.
      * @return Returns the value of trapped.
      */
-    private boolean isTrapped() {
+    boolean isTrapped() {
         return trapped;
     }
 
-    /**
-     * Returns the descrtiption of the trap.
-     * @return Returns the descrtiption of the trap.
-     */
-    private String getTrapDescription() {
-        return trap.getDescription();
-    }
-
     /**
      * Identifies a spaces with the door.
      * This method should also call the addDoor method from Space.
@@ -235,28 +278,14 @@ public class Door {
 
     /**
      * Returns description of the door depending on the flags set beforehand.
+     * The description is kept until one of the flags changes.
      * @return String of the description
      */
     public String getDescription() {
-        if (isArchway()) {
-            description = "The door is an archway.\n";
-        } else {
-            if (isOpen()) {
-                description = "The door is open.\n";
-            } else {
-                description = "The door is closed.\n";
-            }
-            if (isLocked()) {
-                description = description + "The door is locked.\n";
-            } else {
-                description = description + "The door is unlocked.\n";
-            }
-            if (isTrapped()) {
-                description = description + "The door is trapped with a " + getTrapDescription() + ".\n";
-            } else {
-                description = description + "The door is not trapped.\n";
-            }
+        if (description != null) {
+            return description;
         }
+        description = DescriptionRenderer.describe(this);
         return description;
     }
 }
@@ -0,0 +1,545 @@
+/**
+ * Read the README.md for more details.
+ * @author Julian Lau
+ */
+package dungeon;
+
+import dnd.models.ChamberContents;
+import dnd.models.ChamberShape;
+import dnd.models.Monster;
+import dnd.models.Stairs;
+import dnd.models.Trap;
+import dnd.models.Treasure;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Saves and loads a whole dungeon in a compact binary format.
+ * Every dnd.models object is stored as the table roll that recreates it, so a
+ * chamber takes a few bytes and nothing is written as text. Files are written
+ * through a FileChannel and read back into one heap buffer. The file is not memory
+ * mapped, so it is closed as soon as load returns and can be saved over right away.
+ *
+ * Layout (version 1, big endian): magic, version, chamber count, chambers,
+ * door link table, passage count, passages. Passage ends are not stored:
+ * passage k always leads from the k-th linked door, in door id order.
+ */
+public final class DungeonFile {
+    /**
+     * First four bytes of every dungeon file, "DUNG".
+     */
+    private static final int MAGIC = 0x44554E47;
+    /**
+     * Version of the format written by save.
+     */
+    public static final int VERSION = 1;
+    /**
+     * Size of the buffer used while writing.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+    /**
+     * Smallest size of a stored chamber: five rolls, its monster and three counts.
+     */
+    private static final int MIN_CHAMBER_BYTES = 18;
+    /**
+     * Smallest size of a stored passage: four counts.
+     */
+    private static final int MIN_PASSAGE_BYTES = 16;
+    /**
+     * Size of a stored passage section without a door: kind, door flag and monster.
+     */
+    private static final int MIN_SECTION_BYTES = 3;
+    /**
+     * Size of a stored door: flags and trap.
+     */
+    private static final int DOOR_BYTES = 2;
+    /**
+     * Size of a stored treasure: treasure and container.
+     */
+    private static final int TREASURE_BYTES = 2;
+    /**
+     * Flag bits used to store a door.
+     */
+    private static final int ARCHWAY = 1;
+    /**
+     * Flag bit for an open door.
+     */
+    private static final int OPEN = 2;
+    /**
+     * Flag bit for a locked door.
+     */
+    private static final int LOCKED = 4;
+    /**
+     * Flag bit for a trapped door.
+     */
+    private static final int TRAPPED = 8;
+    /**
+     * Shape and area to the chamber shape roll.
+     */
+    private static final HashMap<String, Integer> SHAPE_ROLLS = new HashMap<String, Integer>();
+    /**
+     * Contents description to the contents roll.
+     */
+    private static final HashMap<String, Integer> CONTENTS_ROLLS = new HashMap<String, Integer>();
+    /**
+     * Trap description to the trap roll.
+     */
+    private static final HashMap<String, Integer> TRAP_ROLLS = new HashMap<String, Integer>();
+    /**
+     * Stairs description to the stairs roll.
+     */
+    private static final HashMap<String, Integer> STAIRS_ROLLS = new HashMap<String, Integer>();
+    /**
+     * Monster description and numbers to the monster roll.
+     */
+    private static final HashMap<String, Integer> MONSTER_ROLLS = new HashMap<String, Integer>();
+    /**
+     * Treasure description to the treasure roll.
+     */
+    private static final HashMap<String, Integer> TREASURE_ROLLS = new HashMap<String, Integer>();
+    /**
+     * Container description to the container roll.
+     */
+    private static final HashMap<String, Integer> CONTAINER_ROLLS = new HashMap<String, Integer>();
+
+    static {
+        for (int roll = 1; roll <= 20; ++roll) {
+            ChamberShape shape = ChamberShape.selectChamberShape(roll);
+            if (roll < 18) { // 18-20 are unusual shapes, which chambers never keep.
+                SHAPE_ROLLS.putIfAbsent(shapeKey(shape), roll);
+            }
+            ChamberContents contents = new ChamberContents();
+            contents.chooseContents(roll);
+            CONTENTS_ROLLS.putIfAbsent(contents.getDescription(), roll);
+            Trap trap = new Trap();
+            trap.chooseTrap(roll);
+            TRAP_ROLLS.putIfAbsent(trap.getDescription(), roll);
+            Stairs stairs = new Stairs();
+            stairs.setType(roll);
+            STAIRS_ROLLS.putIfAbsent(stairs.getDescription(), roll);
+            Treasure treasure = new Treasure();
+            treasure.setContainer(roll);
+            CONTAINER_ROLLS.putIfAbsent(treasure.getContainer(), roll);
+        }
+        for (int roll = 1; roll <= 100; ++roll) {
+            Monster monster = new Monster();
+            monster.setType(roll);
+            MONSTER_ROLLS.putIfAbsent(monsterKey(monster), roll);
+            Treasure treasure = new Treasure();
+            treasure.chooseTreasure(roll);
+            TREASURE_ROLLS.putIfAbsent(treasure.getDescription(), roll);
+        }
+    }
+
+    /**
+     * Utility class, not created.
+     */
+    private DungeonFile() {
+    }
+
+    //====================================================
+    // Saving.
+    //====================================================
+
+    /**
+     * Writes the whole dungeon to a file, replacing it if it exists.
+     * Treasure protection is rolled inside the dnd library and is not saved.
+     * @param generator The dungeon being saved.
+     * @param path The file written.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void save(Generator generator, Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            Output out = new Output(channel);
+            out.putInt(MAGIC);
+            out.putInt(VERSION);
+            ArrayList<Chamber> chambers = generator.getChamberList();
+            out.putInt(chambers.size());
+            for (Chamber tempC : chambers) {
+                writeChamber(out, tempC);
+            }
+            out.putInt(generator.getNumDoors());
+            for (int i = 0; i < generator.getNumDoors(); ++i) {
+                out.putInt(generator.getDoorTarget(i));
+            }
+            ArrayList<Passage> passages = generator.getPassageList();
+            out.putInt(passages.size());
+            for (Passage tempP : passages) {
+                writePassage(out, tempP);
+            }
+            out.flush();
+        }
+    }
+
+    /**
+     * Writes one chamber with its doors, monsters and treasure.
+     * @param out The output.
+     * @param chamber The chamber written.
+     * @throws IOException If the file cannot be written.
+     */
+    private static void writeChamber(Output out, Chamber chamber) throws IOException {
+        out.putByte(rollOf(SHAPE_ROLLS, shapeKey(chamber.getChamberShape())));
+        out.putByte(chamber.getChamberShape().getNumExits());
+        out.putByte(rollOf(CONTENTS_ROLLS, chamber.getChamberContents().getDescription()));
+        out.putByte(rollOf(TRAP_ROLLS, chamber.getTrap().getDescription()));
+        out.putByte(rollOf(STAIRS_ROLLS, chamber.getStairs().getDescription()));
+        out.putByte(rollOf(MONSTER_ROLLS, monsterKey(chamber.getMonster())));
+        out.putInt(chamber.getDoorList().size());
+        for (Door tempD : chamber.getDoorList()) {
+            writeDoor(out, tempD);
+        }
+        writeMonsters(out, chamber.getMonsterList());
+        writeTreasure(out, chamber.getTreasureList());
+    }
+
+    /**
+     * Writes one passage with its doors, sections, monsters and treasure.
+     * @param out The output.
+     * @param passage The passage written.
+     * @throws IOException If the file cannot be written.
+     */
+    private static void writePassage(Output out, Passage passage) throws IOException {
+        out.putInt(passage.getDoors().size());
+        for (Door tempD : passage.getDoors()) {
+            writeDoor(out, tempD);
+        }
+        out.putInt(passage.getPassages().size());
+        for (PassageSection tempS : passage.getPassages()) {
+            out.putByte(tempS.getRoll());
+            out.putByte(tempS.getDoor() == null ? 0 : 1);
+            if (tempS.getDoor() != null) {
+                writeDoor(out, tempS.getDoor());
+            }
+            out.putByte(tempS.getMonster() == null ? 0 : rollOf(MONSTER_ROLLS, monsterKey(tempS.getMonster())));
+        }
+        writeMonsters(out, passage.getMonsterList());
+        writeTreasure(out, passage.getTreasureList());
+    }
+
+    /**
+     * Writes the flags and trap of a door.
+     * @param out The output.
+     * @param door The door written.
+     * @throws IOException If the file cannot be written.
+     */
+    private static void writeDoor(Output out, Door door) throws IOException {
+        int flags = 0;
+        flags |= door.isArchway() ? ARCHWAY : 0;
+        flags |= door.isOpen() ? OPEN : 0;
+        flags |= door.isLocked() ? LOCKED : 0;
+        flags |= door.isTrapped() ? TRAPPED : 0;
+        out.putByte(flags);
+        out.putByte(rollOf(TRAP_ROLLS, door.getTrap().getDescription()));
+    }
+
+    /**
+     * Writes a list of monsters.
+     * @param out The output.
+     * @param monsters The monsters written.
+     * @throws IOException If the file cannot be written.
+     */
+    private static void writeMonsters(Output out, List<Monster> monsters) throws IOException {
+        out.putInt(monsters.size());
+        for (Monster tempM : monsters) {
+            out.putByte(rollOf(MONSTER_ROLLS, monsterKey(tempM)));
+        }
+    }
+
+    /**
+     * Writes a list of treasure.
+     * @param out The output.
+     * @param treasures The treasure written.
+     * @throws IOException If the file cannot be written.
+     */
+    private static void writeTreasure(Output out, List<Treasure> treasures) throws IOException {
+        out.putInt(treasures.size());
+        for (Treasure tempT : treasures) {
+            out.putByte(rollOf(TREASURE_ROLLS, tempT.getDescription()));
+            out.putByte(rollOf(CONTAINER_ROLLS, tempT.getContainer()));
+        }
+    }
+
+    //====================================================
+    // Loading.
+    //====================================================
+
+    /**
+     * Reads a dungeon written by save.
+     * @param path The file read.
+     * @return A generator holding the loaded dungeon.
+     * @throws IOException If the file cannot be read or is not a dungeon file.
+     */
+    public static Generator load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Dungeon file is too large: " + path);
+            }
+            ByteBuffer in = ByteBuffer.allocate((int) channel.size());
+            while (in.hasRemaining()) {
+                if (channel.read(in) < 0) {
+                    throw new IOException("Dungeon file ended while reading: " + path);
+                }
+            }
+            in.flip();
+            if (in.remaining() < 8 || in.getInt() != MAGIC) {
+                throw new IOException("Not a dungeon file: " + path);
+            }
+            int version = in.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported dungeon file version " + version + ": " + path);
+            }
+            Dice dice = new Dice();
+            int numChambers = readCount(in, MIN_CHAMBER_BYTES);
+            ArrayList<Chamber> chambers = new ArrayList<Chamber>(numChambers);
+            for (int i = 0; i < numChambers; ++i) {
+                chambers.add(readChamber(in, dice));
+            }
+            int[] targets = new int[readCount(in, Integer.BYTES)];
+            for (int i = 0; i < targets.length; ++i) {
+                targets[i] = in.getInt();
+            }
+            int numPassages = readCount(in, MIN_PASSAGE_BYTES);
+            ArrayList<Passage> passages = new ArrayList<Passage>(numPassages);
+            for (int i = 0; i < numPassages; ++i) {
+                passages.add(readPassage(in, dice));
+            }
+            Generator generator = new Generator(dice);
+            generator.restore(chambers, passages, targets); // Throws IOException if the links do not fit the doors.
+            return generator;
+        } catch (RuntimeException ex) { // Truncated or corrupt file.
+            throw new IOException("Corrupt dungeon file: " + path, ex);
+        }
+    }
+
+    /**
+     * Reads one chamber.
+     * @param in The file contents.
+     * @param dice Dice given to the rebuilt doors.
+     * @return The chamber.
+     * @throws IOException If a count does not fit in the file.
+     */
+    private static Chamber readChamber(ByteBuffer in, Dice dice) throws IOException {
+        ChamberShape shape = ChamberShape.selectChamberShape(in.get());
+        shape.setNumExits(Chamber.exitRoll(shape, in.get()));
+        ChamberContents contents = new ChamberContents();
+        contents.chooseContents(in.get());
+        Trap trap = new Trap();
+        trap.chooseTrap(in.get());
+        Stairs stairs = new Stairs();
+        stairs.setType(in.get());
+        Chamber chamber = new Chamber(shape, contents, trap, stairs, readMonster(in.get()));
+        int numDoors = readCount(in, DOOR_BYTES);
+        for (int i = 0; i < numDoors; ++i) {
+            chamber.addDoor(readDoor(in, dice));
+        }
+        int numMonsters = readCount(in, 1);
+        for (int i = 0; i < numMonsters; ++i) {
+            chamber.addMonster(readMonster(in.get()));
+        }
+        int numTreasure = readCount(in, TREASURE_BYTES);
+        for (int i = 0; i < numTreasure; ++i) {
+            chamber.addTreasure(readTreasure(in.get(), in.get()));
+        }
+        return chamber;
+    }
+
+    /**
+     * Reads one passage.
+     * @param in The file contents.
+     * @param dice Dice given to the rebuilt doors and sections.
+     * @return The passage.
+     * @throws IOException If a count does not fit in the file.
+     */
+    private static Passage readPassage(ByteBuffer in, Dice dice) throws IOException {
+        Passage passage = new Passage();
+        int numDoors = readCount(in, DOOR_BYTES);
+        for (int i = 0; i < numDoors; ++i) {
+            passage.addPassageDoor(readDoor(in, dice));
+        }
+        int numSections = readCount(in, MIN_SECTION_BYTES);
+        for (int i = 0; i < numSections; ++i) {
+            PassageSection section = new PassageSection(in.get(), dice);
+            section.setDoor(in.get() == 0 ? null : readDoor(in, dice));
+            int monsterRoll = in.get();
+            if (monsterRoll != 0 || section.getMonster() != null) {
+                section.setMonster(readMonster(monsterRoll));
+            }
+            passage.addPassageSection(section);
+        }
+        int numMonsters = readCount(in, 1);
+        for (int i = 0; i < numMonsters; ++i) {
+            passage.addMonster(readMonster(in.get()));
+        }
+        int numTreasure = readCount(in, TREASURE_BYTES);
+        for (int i = 0; i < numTreasure; ++i) {
+            passage.addTreasure(readTreasure(in.get(), in.get()));
+        }
+        return passage;
+    }
+
+    /**
+     * Reads a count and checks that the rest of the file can hold that many records,
+     * so a corrupt count cannot make load allocate more than the file size.
+     * @param in The file contents.
+     * @param recordBytes The smallest size of one record.
+     * @return The count.
+     * @throws IOException If the count is negative or too large for the rest of the file.
+     */
+    private static int readCount(ByteBuffer in, int recordBytes) throws IOException {
+        int count = in.getInt();
+        if (count < 0 || count > in.remaining() / recordBytes) {
+            throw new IOException("Corrupt dungeon file: " + count + " records cannot fit in the last "
+                    + in.remaining() + " bytes");
+        }
+        return count;
+    }
+
+    /**
+     * Reads one door.
+     * @param in The file contents.
+     * @param dice Dice used if the door is changed later.
+     * @return The door.
+     */
+    private static Door readDoor(ByteBuffer in, Dice dice) {
+        int flags = in.get();
+        Trap trap = new Trap();
+        trap.chooseTrap(in.get());
+        boolean[] state = {(flags & ARCHWAY) != 0, (flags & OPEN) != 0, (flags & LOCKED) != 0, (flags & TRAPPED) != 0};
+        return new Door(dice, state, trap);
+    }
+
+    /**
+     * Rebuilds a monster from its roll.
+     * @param roll The monster roll, 0 for a monster with no type.
+     * @return The monster.
+     */
+    private static Monster readMonster(int roll) {
+        Monster monster = new Monster();
+        if (roll != 0) {
+            monster.setType(roll);
+        }
+        return monster;
+    }
+
+    /**
+     * Rebuilds a treasure from its rolls.
+     * @param roll The treasure roll, 0 for none.
+     * @param containerRoll The container roll, 0 for none.
+     * @return The treasure.
+     */
+    private static Treasure readTreasure(int roll, int containerRoll) {
+        Treasure treasure = new Treasure();
+        if (roll != 0) {
+            treasure.chooseTreasure(roll);
+        }
+        if (containerRoll != 0) {
+            treasure.setContainer(containerRoll);
+        }
+        return treasure;
+    }
+
+    //====================================================
+    // Lookups.
+    //====================================================
+
+    /**
+     * Looks up the roll that recreates a value.
+     * @param table The lookup table.
+     * @param key The value.
+     * @return The roll, or 0 if the value was never set.
+     */
+    private static int rollOf(HashMap<String, Integer> table, String key) {
+        Integer roll = table.get(key);
+        return roll == null ? 0 : roll;
+    }
+
+    /**
+     * Returns the lookup key of a chamber shape.
+     * @param shape The chamber shape.
+     * @return The shape name and area.
+     */
+    private static String shapeKey(ChamberShape shape) {
+        return shape.getShape() + "|" + shape.getArea();
+    }
+
+    /**
+     * Returns the lookup key of a monster.
+     * @param monster The monster.
+     * @return The monster description and numbers.
+     */
+    private static String monsterKey(Monster monster) {
+        return monster.getDescription() + "|" + monster.getMinNum() + "|" + monster.getMaxNum();
+    }
+
+    /**
+     * Buffers writes to a file channel.
+     */
+    private static final class Output {
+        /**
+         * The file being written.
+         */
+        private FileChannel channel;
+        /**
+         * Bytes waiting to be written.
+         */
+        private ByteBuffer buffer;
+
+        /**
+         * Creates the output.
+         * @param theChannel The file being written.
+         */
+        Output(FileChannel theChannel) {
+            channel = theChannel;
+            buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        }
+
+        /**
+         * Writes one byte.
+         * @param value The byte, from -128 to 127.
+         * @throws IOException If the file cannot be written.
+         */
+        void putByte(int value) throws IOException {
+            ensure(1);
+            buffer.put((byte) value);
+        }
+
+        /**
+         * Writes one int.
+         * @param value The int.
+         * @throws IOException If the file cannot be written.
+         */
+        void putInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+        /**
+         * Makes room for the given number of bytes.
+         * @param bytes The bytes needed.
+         * @throws IOException If the file cannot be written.
+         */
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        /**
+         * Writes everything buffered so far.
+         * @throws IOException If the file cannot be written.
+         */
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
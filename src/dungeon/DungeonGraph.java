@@ -0,0 +1,480 @@
+/**
+ * Read the README.md for more details.
+ * @author Julian Lau
+ */
+package dungeon;
+
+import dnd.exceptions.UnusualShapeException;
+import java.util.Arrays;
+
+/**
+ * Adjacency index of every chamber and passage, built from the passage endpoints of a generator.
+ * Spaces are numbered chambers first, then passages, as in the GUI space list. Every linked
+ * passage is joined to the chamber it starts at and the chamber it ends at; a passage that is
+ * not linked has no edges. The edges are kept in flat int arrays (compressed rows), so building
+ * the index and every query except routes runs in linear time without boxing.
+ * Routes run Dijkstra on a primitive binary heap.
+ * The index is a snapshot; build a new one after the passages change.
+ */
+public final class DungeonGraph {
+    /**
+     * Length of the passage behind every door, two 10 ft sections.
+     */
+    public static final int PASSAGE_FEET = 20;
+    /**
+     * Number of chambers, the first space ids.
+     */
+    private final int numChambers;
+    /**
+     * Number of chambers and passages.
+     */
+    private final int numSpaces;
+    /**
+     * First edge of each space; the edges of space s are edgeStart[s] to edgeStart[s + 1] - 1.
+     */
+    private final int[] edgeStart;
+    /**
+     * Space at the far end of each edge.
+     */
+    private final int[] edgeTarget;
+    /**
+     * Walking distance of each edge in feet.
+     */
+    private final int[] edgeFeet;
+    /**
+     * Connected component of each space, numbered from 0 in space order.
+     */
+    private final int[] component;
+    /**
+     * Number of spaces in each connected component.
+     */
+    private final int[] componentSize;
+    /**
+     * Number of connected components.
+     */
+    private final int numComponents;
+
+    /**
+     * Builds the index from the passage endpoints of a generator.
+     * @param generator A generator whose passages were created.
+     */
+    public DungeonGraph(Generator generator) {
+        numChambers = generator.getChamberList().size();
+        int numPassages = generator.getPassageList().size();
+        numSpaces = numChambers + numPassages;
+        int[] halfLength = new int[numChambers]; // Walk from the middle of a chamber to its wall.
+        for (int c = 0; c < numChambers; ++c) {
+            halfLength[c] = getHalfLength(generator.getChamberList().get(c));
+        }
+        edgeStart = new int[numSpaces + 1];
+        for (int p = 0; p < numPassages; ++p) {
+            int start = generator.getPassageStart(p);
+            if (start >= 0) { // Two edges each way: start to passage and passage to end.
+                edgeStart[start + 1] += 1;
+                edgeStart[generator.getPassageEnd(p) + 1] += 1;
+                edgeStart[numChambers + p + 1] += 2;
+            }
+        }
+        for (int s = 0; s < numSpaces; ++s) {
+            edgeStart[s + 1] += edgeStart[s];
+        }
+        edgeTarget = new int[edgeStart[numSpaces]];
+        edgeFeet = new int[edgeTarget.length];
+        int[] next = Arrays.copyOf(edgeStart, numSpaces);
+        for (int p = 0; p < numPassages; ++p) {
+            int start = generator.getPassageStart(p);
+            if (start >= 0) {
+                int passage = numChambers + p;
+                addEdge(next, start, passage, halfLength[start] + PASSAGE_FEET / 2);
+                int end = generator.getPassageEnd(p);
+                addEdge(next, passage, end, PASSAGE_FEET / 2 + halfLength[end]);
+            }
+        }
+        component = new int[numSpaces];
+        numComponents = labelComponents();
+        componentSize = new int[numComponents];
+        for (int s = 0; s < numSpaces; ++s) {
+            ++componentSize[component[s]];
+        }
+    }
+
+    /**
+     * Returns the walk from the middle of a chamber to its wall. Unusual shapes have no length,
+     * so they are walked as a square of the same area.
+     * @param chamber The chamber.
+     * @return Half the length, in feet.
+     */
+    private static int getHalfLength(Chamber chamber) {
+        try {
+            return chamber.getLength() / 2;
+        } catch (UnusualShapeException ex) {
+            return (int) Math.sqrt(chamber.getChamberShape().getArea()) / 2;
+        }
+    }
+
+    /**
+     * Stores an undirected edge in both rows.
+     * @param next Next free edge of each row.
+     * @param a One space id.
+     * @param b The other space id.
+     * @param feet Walking distance of the edge.
+     */
+    private void addEdge(int[] next, int a, int b, int feet) {
+        edgeTarget[next[a]] = b;
+        edgeFeet[next[a]++] = feet;
+        edgeTarget[next[b]] = a;
+        edgeFeet[next[b]++] = feet;
+    }
+
+    /**
+     * Numbers the connected components with a breadth first search from every unlabelled space.
+     * @return The number of components.
+     */
+    private int labelComponents() {
+        Arrays.fill(component, -1);
+        int[] queue = new int[numSpaces];
+        int count = 0;
+        for (int start = 0; start < numSpaces; ++start) {
+            if (component[start] < 0) {
+                component[start] = count;
+                int head = 0;
+                int tail = 0;
+                queue[tail++] = start;
+                while (head < tail) {
+                    int c = queue[head++];
+                    for (int e = edgeStart[c]; e < edgeStart[c + 1]; ++e) {
+                        if (component[edgeTarget[e]] < 0) {
+                            component[edgeTarget[e]] = count;
+                            queue[tail++] = edgeTarget[e];
+                        }
+                    }
+                }
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    //====================================================
+    // Structure.
+    //====================================================
+
+    /**
+     * Returns the number of chambers. Chamber c is space c.
+     * @return The number of chambers.
+     */
+    public int getNumChambers() {
+        return numChambers;
+    }
+
+    /**
+     * Returns the number of chambers and passages.
+     * @return The number of spaces.
+     */
+    public int getNumSpaces() {
+        return numSpaces;
+    }
+
+    /**
+     * Returns the space id of a passage.
+     * @param passageNum The passage id.
+     * @return The space id.
+     */
+    public int getPassageSpace(int passageNum) {
+        return numChambers + passageNum;
+    }
+
+    /**
+     * Checks if a space is a passage.
+     * @param space The space id.
+     * @return True for a passage, false for a chamber.
+     */
+    public boolean isPassage(int space) {
+        return space >= numChambers;
+    }
+
+    /**
+     * Returns the number of edges of a space: the passages leading out of or into a chamber,
+     * or the two ends of a linked passage.
+     * @param space The space id.
+     * @return The number of edges.
+     */
+    public int getDegree(int space) {
+        return edgeStart[space + 1] - edgeStart[space];
+    }
+
+    /**
+     * Returns the spaces joined to a space, once per edge.
+     * @param space The space id.
+     * @return The space ids.
+     */
+    public int[] getNeighbours(int space) {
+        return Arrays.copyOfRange(edgeTarget, edgeStart[space], edgeStart[space + 1]);
+    }
+
+    //====================================================
+    // Connectivity.
+    //====================================================
+
+    /**
+     * Returns the number of connected components.
+     * @return The number of components.
+     */
+    public int getNumComponents() {
+        return numComponents;
+    }
+
+    /**
+     * Returns the connected component of a space.
+     * @param space The space id.
+     * @return The component, from 0 to getNumComponents() - 1.
+     */
+    public int getComponent(int space) {
+        return component[space];
+    }
+
+    /**
+     * Returns the number of spaces that can be reached from a space, itself included. Constant time.
+     * @param space The space id.
+     * @return The number of spaces.
+     */
+    public int getNumReachable(int space) {
+        return componentSize[component[space]];
+    }
+
+    /**
+     * Checks if one space can be reached from another. Constant time.
+     * @param from The starting space id.
+     * @param to The space id looked for.
+     * @return True if a path links them.
+     */
+    public boolean isReachable(int from, int to) {
+        return component[from] == component[to];
+    }
+
+    /**
+     * Returns every space that cannot be reached from a space.
+     * @param from The starting space id.
+     * @return The unreachable space ids, in order.
+     */
+    public int[] getUnreachable(int from) {
+        int count = 0;
+        for (int c = 0; c < numSpaces; ++c) {
+            if (component[c] != component[from]) {
+                ++count;
+            }
+        }
+        int[] unreachable = new int[count];
+        int k = 0;
+        for (int c = 0; c < numSpaces; ++c) {
+            if (component[c] != component[from]) {
+                unreachable[k++] = c;
+            }
+        }
+        return unreachable;
+    }
+
+    //====================================================
+    // Paths.
+    //====================================================
+
+    /**
+     * Returns the number of doorways crossed between a space and every other space, by breadth first search.
+     * Going from a chamber through a passage to the next chamber crosses two.
+     * @param from The starting space id.
+     * @return The number of doorways to each space, or -1 for spaces that cannot be reached.
+     */
+    public int[] getDoorDistances(int from) {
+        int[] distance = new int[numSpaces];
+        breadthFirst(from, -1, distance, new int[numSpaces]);
+        return distance;
+    }
+
+    /**
+     * Returns a path through the fewest doorways, by breadth first search.
+     * @param from The starting space id.
+     * @param to The space id looked for.
+     * @return The space ids along the path, from and to included, or an empty array if to cannot be reached.
+     */
+    public int[] getShortestPath(int from, int to) {
+        if (!isReachable(from, to)) {
+            return new int[0];
+        }
+        int[] previous = new int[numSpaces];
+        breadthFirst(from, to, new int[numSpaces], previous);
+        return walkBack(previous, from, to);
+    }
+
+    /**
+     * Runs a breadth first search, stopping early once the target is found.
+     * @param from The starting space id.
+     * @param to The space id looked for, or -1 to reach every space.
+     * @param distance Receives the number of doorways to each space, -1 if not reached.
+     * @param previous Receives the space each space was reached from.
+     */
+    private void breadthFirst(int from, int to, int[] distance, int[] previous) {
+        Arrays.fill(distance, -1);
+        int[] queue = new int[numSpaces];
+        int head = 0;
+        int tail = 0;
+        distance[from] = 0;
+        previous[from] = -1;
+        queue[tail++] = from;
+        while (head < tail) {
+            int c = queue[head++];
+            if (c == to) {
+                return;
+            }
+            for (int e = edgeStart[c]; e < edgeStart[c + 1]; ++e) {
+                int n = edgeTarget[e];
+                if (distance[n] < 0) {
+                    distance[n] = distance[c] + 1;
+                    previous[n] = c;
+                    queue[tail++] = n;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the walking distance in feet from a space to every other space, by Dijkstra.
+     * Walking through a passage costs half of each space's length plus the passage.
+     * @param from The starting space id.
+     * @return The distance to each space, or -1 for spaces that cannot be reached.
+     */
+    public long[] getFeetDistances(int from) {
+        long[] distance = new long[numSpaces];
+        dijkstra(from, -1, distance, new int[numSpaces]);
+        return distance;
+    }
+
+    /**
+     * Returns the shortest walking route in feet, by Dijkstra.
+     * @param from The starting space id.
+     * @param to The space id looked for.
+     * @return The space ids along the route, from and to included, or an empty array if to cannot be reached.
+     */
+    public int[] getShortestRoute(int from, int to) {
+        if (!isReachable(from, to)) {
+            return new int[0];
+        }
+        int[] previous = new int[numSpaces];
+        dijkstra(from, to, new long[numSpaces], previous);
+        return walkBack(previous, from, to);
+    }
+
+    /**
+     * Runs Dijkstra with a binary heap of space ids keyed by distance, stopping early once the target is settled.
+     * Spaces are pushed again when their distance drops; stale entries are skipped when popped.
+     * @param from The starting space id.
+     * @param to The space id looked for, or -1 to reach every space.
+     * @param distance Receives the distance in feet to each space, -1 if not reached.
+     * @param previous Receives the space each space was reached from.
+     */
+    private void dijkstra(int from, int to, long[] distance, int[] previous) {
+        Arrays.fill(distance, -1);
+        boolean[] settled = new boolean[numSpaces];
+        int[] heap = new int[edgeTarget.length + 1]; // Every push follows an edge, plus the start.
+        long[] keys = new long[heap.length];
+        int size = 0;
+        distance[from] = 0;
+        previous[from] = -1;
+        size = push(heap, keys, size, from, 0);
+        while (size > 0) {
+            int c = heap[0];
+            long d = keys[0];
+            size = pop(heap, keys, size);
+            if (settled[c]) {
+                continue;
+            }
+            settled[c] = true;
+            if (c == to) {
+                return;
+            }
+            for (int e = edgeStart[c]; e < edgeStart[c + 1]; ++e) {
+                int n = edgeTarget[e];
+                long nd = d + edgeFeet[e];
+                if (!settled[n] && (distance[n] < 0 || nd < distance[n])) {
+                    distance[n] = nd;
+                    previous[n] = c;
+                    size = push(heap, keys, size, n, nd);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds a space to the heap.
+     * @param heap Space ids in heap order.
+     * @param keys Distance of each heap entry.
+     * @param size Number of entries.
+     * @param space The space id.
+     * @param key Its distance.
+     * @return The new number of entries.
+     */
+    private static int push(int[] heap, long[] keys, int size, int space, long key) {
+        int i = size;
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (keys[parent] <= key) {
+                break;
+            }
+            heap[i] = heap[parent];
+            keys[i] = keys[parent];
+            i = parent;
+        }
+        heap[i] = space;
+        keys[i] = key;
+        return size + 1;
+    }
+
+    /**
+     * Removes the closest space from the heap.
+     * @param heap Space ids in heap order.
+     * @param keys Distance of each heap entry.
+     * @param size Number of entries, at least 1.
+     * @return The new number of entries.
+     */
+    private static int pop(int[] heap, long[] keys, int size) {
+        int last = size - 1;
+        int space = heap[last];
+        long key = keys[last];
+        int i = 0;
+        while (2 * i + 1 < last) {
+            int child = 2 * i + 1;
+            if (child + 1 < last && keys[child + 1] < keys[child]) {
+                ++child;
+            }
+            if (key <= keys[child]) {
+                break;
+            }
+            heap[i] = heap[child];
+            keys[i] = keys[child];
+            i = child;
+        }
+        heap[i] = space;
+        keys[i] = key;
+        return last;
+    }
+
+    /**
+     * Follows the previous links back from the target.
+     * @param previous The space each space was reached from.
+     * @param from The starting space id.
+     * @param to The target space id.
+     * @return The space ids from start to target.
+     */
+    private static int[] walkBack(int[] previous, int from, int to) {
+        int length = 1;
+        for (int c = to; c != from; c = previous[c]) {
+            ++length;
+        }
+        int[] path = new int[length];
+        int c = to;
+        for (int i = length - 1; i >= 0; --i) {
+            path[i] = c;
+            c = previous[c]; // previous[from] is -1, read only after the last step.
+        }
+        return path;
+    }
+}
@@ -0,0 +1,121 @@
+/**
+ * Read the README.md for more details.
+ * @author Julian Lau
+ */
+package dungeon;
+
+/**
+ * Unlimited undo and redo over dungeon states. Each step only keeps a reference
+ * to a state, and states share their unchanged parts, so history is cheap to keep.
+ * The current state can be read from any thread; changes must come from one thread.
+ */
+public final class DungeonHistory {
+    /**
+     * One entry of a stack of states.
+     */
+    private static final class Step {
+        /**
+         * The state.
+         */
+        private final DungeonState state;
+        /**
+         * The entry below, or null.
+         */
+        private final Step next;
+
+        /**
+         * Creates an entry.
+         * @param theState The state.
+         * @param theNext The entry below, or null.
+         */
+        private Step(DungeonState theState, Step theNext) {
+            state = theState;
+            next = theNext;
+        }
+    }
+
+    /**
+     * The current state.
+     */
+    private volatile DungeonState current;
+    /**
+     * States that undo goes back to, latest first.
+     */
+    private Step undoStack;
+    /**
+     * States that redo goes forward to, next first.
+     */
+    private Step redoStack;
+
+    /**
+     * Starts a history.
+     * @param initial The first state.
+     */
+    public DungeonHistory(DungeonState initial) {
+        current = initial;
+    }
+
+    /**
+     * Returns the current state.
+     * @return The state.
+     */
+    public DungeonState getCurrent() {
+        return current;
+    }
+
+    /**
+     * Makes a new state current, forgetting anything that could be redone.
+     * @param next The new state.
+     */
+    public void push(DungeonState next) {
+        undoStack = new Step(current, undoStack);
+        redoStack = null;
+        current = next;
+    }
+
+    /**
+     * Checks if there is a step to undo.
+     * @return True if undo can be called.
+     */
+    public boolean canUndo() {
+        return undoStack != null;
+    }
+
+    /**
+     * Checks if there is a step to redo.
+     * @return True if redo can be called.
+     */
+    public boolean canRedo() {
+        return redoStack != null;
+    }
+
+    /**
+     * Goes back one step.
+     * @return The new current state.
+     * @throws IllegalStateException If there is nothing to undo.
+     */
+    public DungeonState undo() {
+        if (undoStack == null) {
+            throw new IllegalStateException("Nothing to undo");
+        }
+        redoStack = new Step(current, redoStack);
+        current = undoStack.state;
+        undoStack = undoStack.next;
+        return current;
+    }
+
+    /**
+     * Goes forward one step.
+     * @return The new current state.
+     * @throws IllegalStateException If there is nothing to redo.
+     */
+    public DungeonState redo() {
+        if (redoStack == null) {
+            throw new IllegalStateException("Nothing to redo");
+        }
+        undoStack = new Step(current, undoStack);
+        current = redoStack.state;
+        redoStack = redoStack.next;
+        return current;
+    }
+}
@@ -0,0 +1,27 @@
+/**
+ * Read the README.md for more details.
+ * @author Julian Lau
+ */
+package dungeon;
+
+/**
+ * Receives spaces from a StreamingGenerator as soon as they are created.
+ */
+public interface DungeonListener {
+
+    /**
+     * Called once for every chamber, in order.
+     * @param chamberNum The index of the chamber, starting at 0.
+     * @param chamber The chamber that was created.
+     */
+    void chamberCreated(int chamberNum, Chamber chamber);
+
+    /**
+     * Called once for every passage, after both chambers it links have been created.
+     * @param passageNum The index of the passage, starting at 0.
+     * @param passage The passage that was created.
+     * @param chamberOne The index of the first linked chamber.
+     * @param chamberTwo The index of the second linked chamber.
+     */
+    void passageCreated(int passageNum, Passage passage, int chamberOne, int chamberTwo);
+}
@@ -0,0 +1,83 @@
+/**
+ * Read the README.md for more details.
+ * @author Julian Lau
+ */
+package dungeon;
+
+import dnd.models.Monster;
+import dnd.models.Treasure;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Stocks every chamber and passage of a dungeon with monsters and treasure in one pass.
+ * Spaces are filled in parallel, each from its own split of the dice, so the result
+ * for a given seed is the same on any number of threads. Nothing is changed in place;
+ * the filled dungeon is returned as a new state, one edit for the undo history.
+ */
+public final class DungeonPopulator {
+    /**
+     * Not created; every method is static.
+     */
+    private DungeonPopulator() {
+    }
+
+    /**
+     * Returns a state with the monsters and treasure of a rule added to every space.
+     * @param state The current state.
+     * @param generator The dungeon the state belongs to, for the chamber areas.
+     * @param rule How many monsters and treasures each space gets.
+     * @param dice The dice, split once per space.
+     * @return The stocked state.
+     */
+    public static DungeonState populate(DungeonState state, Generator generator, PopulationRule rule, Dice dice) {
+        int numChambers = state.getNumChambers();
+        int numPassages = state.getNumPassages();
+        int[] areas = new int[numChambers];
+        for (int c = 0; c < numChambers; ++c) {
+            areas[c] = generator.getChamberList().get(c).getChamberShape().getArea();
+        }
+        Dice[] spaceDice = new Dice[numChambers + numPassages];
+        for (int i = 0; i < spaceDice.length; ++i) {
+            spaceDice[i] = dice.split();
+        }
+        SpaceContents[] chambers = IntStream.range(0, numChambers).parallel()
+                .mapToObj(c -> fill(state.getChamber(c), rule, spaceDice[c],
+                        rule.chamberMonsters(areas[c], spaceDice[c]), rule.chamberTreasure(areas[c], spaceDice[c]), true))
+                .toArray(SpaceContents[]::new);
+        SpaceContents[] passages = IntStream.range(0, numPassages).parallel()
+                .mapToObj(p -> fill(state.getPassage(p), rule, spaceDice[numChambers + p],
+                        rule.passageMonsters(), rule.passageTreasure(), false))
+                .toArray(SpaceContents[]::new);
+        return DungeonState.of(Arrays.asList(chambers), Arrays.asList(passages));
+    }
+
+    /**
+     * Adds rolled monsters and treasures to the contents of one space.
+     * @param contents The contents of the space.
+     * @param rule The rolls allowed.
+     * @param dice The dice of this space.
+     * @param numMonsters Number of monsters added.
+     * @param numTreasure Number of treasures added.
+     * @param inChamber True if the treasure gets a container, as chamber treasure does.
+     * @return The new contents.
+     */
+    private static SpaceContents fill(SpaceContents contents, PopulationRule rule, Dice dice,
+            int numMonsters, int numTreasure, boolean inChamber) {
+        Monster[] monsters = new Monster[numMonsters];
+        for (int i = 0; i < numMonsters; ++i) {
+            monsters[i] = new Monster();
+            monsters[i].setType(rule.rollMonster(dice));
+        }
+        Treasure[] treasure = new Treasure[numTreasure];
+        for (int i = 0; i < numTreasure; ++i) {
+            int roll = rule.rollTreasure(dice);
+            treasure[i] = new Treasure();
+            treasure[i].chooseTreasure(roll);
+            if (inChamber) {
+                treasure[i].setContainer((roll % 20) + 1);
+            }
+        }
+        return contents.withAll(monsters, treasure);
+    }
+}
@@ -0,0 +1,128 @@
+/**
+ * Read the README.md for more details.
+ * @author Julian Lau
+ */
+package dungeon;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One version of everything that can be edited in a dungeon: the monsters and
+ * treasure of every chamber and passage. A state is never changed; every edit
+ * returns a new state sharing all but O(log n) of the old one, so any number of
+ * versions can be kept for undo, and a reader can hold one while edits go on.
+ * Shapes, doors and links are not edited after generation and stay in the Generator.
+ */
+public final class DungeonState {
+    /**
+     * Contents of each chamber.
+     */
+    private final PersistentVector<SpaceContents> chambers;
+    /**
+     * Contents of each passage.
+     */
+    private final PersistentVector<SpaceContents> passages;
+
+    /**
+     * Creates a state from its parts.
+     * @param theChambers Contents of each chamber.
+     * @param thePassages Contents of each passage.
+     */
+    private DungeonState(PersistentVector<SpaceContents> theChambers, PersistentVector<SpaceContents> thePassages) {
+        chambers = theChambers;
+        passages = thePassages;
+    }
+
+    /**
+     * Captures the current monsters and treasure of a dungeon.
+     * @param generator The dungeon.
+     * @return The state.
+     */
+    public static DungeonState of(Generator generator) {
+        ArrayList<SpaceContents> chamberContents = new ArrayList<SpaceContents>(generator.getChamberList().size());
+        for (Chamber chamber : generator.getChamberList()) {
+            chamberContents.add(chamber.getContents());
+        }
+        ArrayList<SpaceContents> passageContents = new ArrayList<SpaceContents>(generator.getPassageList().size());
+        for (Passage passage : generator.getPassageList()) {
+            passageContents.add(passage.getContents());
+        }
+        return of(chamberContents, passageContents);
+    }
+
+    /**
+     * Creates a state from the contents of every space.
+     * @param chamberContents Contents of each chamber.
+     * @param passageContents Contents of each passage.
+     * @return The state.
+     */
+    static DungeonState of(List<SpaceContents> chamberContents, List<SpaceContents> passageContents) {
+        return new DungeonState(PersistentVector.of(chamberContents), PersistentVector.of(passageContents));
+    }
+
+    /**
+     * Returns the number of chambers.
+     * @return The number of chambers.
+     */
+    public int getNumChambers() {
+        return chambers.size();
+    }
+
+    /**
+     * Returns the number of passages.
+     * @return The number of passages.
+     */
+    public int getNumPassages() {
+        return passages.size();
+    }
+
+    /**
+     * Returns the contents of a chamber.
+     * @param chamberNum The chamber number.
+     * @return The contents.
+     */
+    public SpaceContents getChamber(int chamberNum) {
+        return chambers.get(chamberNum);
+    }
+
+    /**
+     * Returns the contents of a passage.
+     * @param passageNum The passage number.
+     * @return The contents.
+     */
+    public SpaceContents getPassage(int passageNum) {
+        return passages.get(passageNum);
+    }
+
+    /**
+     * Returns a state with the contents of one chamber replaced.
+     * @param chamberNum The chamber number.
+     * @param contents The new contents.
+     * @return The new state.
+     */
+    public DungeonState withChamber(int chamberNum, SpaceContents contents) {
+        return new DungeonState(chambers.set(chamberNum, contents), passages);
+    }
+
+    /**
+     * Returns a state with the contents of one passage replaced.
+     * @param passageNum The passage number.
+     * @param contents The new contents.
+     * @return The new state.
+     */
+    public DungeonState withPassage(int passageNum, SpaceContents contents) {
+        return new DungeonState(chambers, passages.set(passageNum, contents));
+    }
+
+    /**
+     * Makes the dungeon's chambers and passages match this state, touching only the spaces
+     * that differ from the state the dungeon matched before.
+     * @param generator The dungeon.
+     * @param previous The state the dungeon matched, a version of this one.
+     */
+    public void applyTo(Generator generator, DungeonState previous) {
+        chambers.forEachChange(previous.chambers, c -> generator.getChamberList().get(c).setContents(chambers.get(c)));
+        passages.forEachChange(previous.passages, p -> generator.getPassageList().get(p).setContents(passages.get(p)));
+    }
+}
@@ -0,0 +1,325 @@
+/**
+ * Read the README.md for more details.
+ * @author Julian Lau
+ */
+package dungeon;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counts where generation time goes, for every Generator in the process.
+ * Counters are LongAdders, so chambers built on many threads do not contend,
+ * and each phase costs two clock reads. Call register() to publish the metrics over JMX.
+ */
+public final class GenerationMetrics implements GenerationMetricsMXBean {
+    /**
+     * Name the metrics are published under.
+     */
+    public static final String OBJECT_NAME = "dungeon:type=GenerationMetrics";
+    /**
+     * The metrics of this process.
+     */
+    private static final GenerationMetrics INSTANCE = new GenerationMetrics();
+    /**
+     * Reads the bytes allocated by a thread, or null if the JVM cannot.
+     */
+    private static final com.sun.management.ThreadMXBean ALLOCATION = allocationBean();
+
+    /**
+     * A timed generation phase.
+     */
+    public enum Phase {
+        /**
+         * Generator.createChambers.
+         */
+        CREATE_CHAMBERS,
+        /**
+         * Generator.setAvailableChambers.
+         */
+        SET_AVAILABLE_CHAMBERS,
+        /**
+         * Generator.assignChambers.
+         */
+        ASSIGN_CHAMBERS,
+        /**
+         * Generator.createPassages.
+         */
+        CREATE_PASSAGES
+    }
+
+    /**
+     * Number of runs of each phase.
+     */
+    private final LongAdder[] calls = adders(Phase.values().length);
+    /**
+     * Total time of each phase, in nanoseconds.
+     */
+    private final LongAdder[] totalNanos = adders(Phase.values().length);
+    /**
+     * Bytes allocated in each phase.
+     */
+    private final LongAdder[] allocatedBytes = adders(Phase.values().length);
+    /**
+     * Longest run of each phase, in nanoseconds.
+     */
+    private final LongAccumulator[] maxNanos = new LongAccumulator[Phase.values().length];
+    /**
+     * Number of chambers created.
+     */
+    private final LongAdder chambers = new LongAdder();
+    /**
+     * Number of doors created.
+     */
+    private final LongAdder doors = new LongAdder();
+    /**
+     * Number of passages created.
+     */
+    private final LongAdder passages = new LongAdder();
+    /**
+     * Number of doors moved by assignChambers.
+     */
+    private final LongAdder repairedDoors = new LongAdder();
+    /**
+     * Number of slot swaps tried by assignChambers.
+     */
+    private final LongAdder repairSwaps = new LongAdder();
+    /**
+     * Number of doors assignChambers could not link.
+     */
+    private final LongAdder unmatchedDoors = new LongAdder();
+
+    /**
+     * Only the shared instance is created.
+     */
+    private GenerationMetrics() {
+        for (int i = 0; i < maxNanos.length; ++i) {
+            maxNanos[i] = new LongAccumulator(Math::max, 0);
+        }
+    }
+
+    /**
+     * Returns the metrics of this process.
+     * @return The metrics.
+     */
+    public static GenerationMetrics get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Publishes the metrics on the platform MBean server. Does nothing if they already are.
+     * @throws IllegalStateException If the MBean server refuses them.
+     */
+    public static synchronized void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(INSTANCE, name);
+            }
+        } catch (JMException ex) {
+            throw new IllegalStateException("Could not register " + OBJECT_NAME, ex);
+        }
+    }
+
+    /**
+     * Returns the bean that reads allocated bytes, if the JVM has one that is switched on.
+     * @return The bean, or null.
+     */
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sun = (com.sun.management.ThreadMXBean) bean;
+            if (sun.isThreadAllocatedMemorySupported() && sun.isThreadAllocatedMemoryEnabled()) {
+                return sun;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Creates an array of counters.
+     * @param n Number of counters.
+     * @return The counters.
+     */
+    private static LongAdder[] adders(int n) {
+        LongAdder[] array = new LongAdder[n];
+        for (int i = 0; i < n; ++i) {
+            array[i] = new LongAdder();
+        }
+        return array;
+    }
+
+    //====================================================
+    // Recording.
+    //====================================================
+
+    /**
+     * Returns the bytes allocated so far by the current thread, to pass to endPhase.
+     * @return The bytes, or 0 if the JVM cannot tell.
+     */
+    long startAllocation() {
+        return ALLOCATION == null ? 0 : ALLOCATION.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Records one run of a phase.
+     * @param phase The phase.
+     * @param startNanos System.nanoTime() when the phase started.
+     * @param startBytes startAllocation() when the phase started.
+     */
+    void endPhase(Phase phase, long startNanos, long startBytes) {
+        long elapsed = System.nanoTime() - startNanos;
+        int i = phase.ordinal();
+        calls[i].increment();
+        totalNanos[i].add(elapsed);
+        maxNanos[i].accumulate(elapsed);
+        if (ALLOCATION != null) {
+            allocatedBytes[i].add(ALLOCATION.getCurrentThreadAllocatedBytes() - startBytes);
+        }
+    }
+
+    /**
+     * Adds the bytes a pool thread allocated while working for a phase. endPhase only sees
+     * the calling thread, so work it hands to other threads is counted here.
+     * @param phase The phase.
+     * @param startBytes startAllocation() on this thread when its share of the work started.
+     */
+    void workerAllocation(Phase phase, long startBytes) {
+        if (ALLOCATION != null) {
+            allocatedBytes[phase.ordinal()].add(ALLOCATION.getCurrentThreadAllocatedBytes() - startBytes);
+        }
+    }
+
+    /**
+     * Records a new chamber.
+     * @param numDoors Number of doors the chamber was made with.
+     */
+    void chamberCreated(int numDoors) {
+        chambers.increment();
+        doors.add(numDoors);
+    }
+
+    /**
+     * Records new passages.
+     * @param count Number of passages.
+     * @param numDoors Number of doors made for them.
+     */
+    void passagesCreated(int count, int numDoors) {
+        passages.add(count);
+        doors.add(numDoors);
+    }
+
+    /**
+     * Records the work done by one assignChambers call.
+     * @param repaired Doors moved off their own chamber.
+     * @param swaps Slot swaps tried.
+     * @param unmatched Doors left unlinked.
+     */
+    void doorsAssigned(int repaired, long swaps, int unmatched) {
+        repairedDoors.add(repaired);
+        repairSwaps.add(swaps);
+        unmatchedDoors.add(unmatched);
+    }
+
+    //====================================================
+    // Reading.
+    //====================================================
+
+    /**
+     * Returns the times of a phase.
+     * @param phase The phase.
+     * @return The phase times.
+     */
+    public PhaseTimes getPhase(Phase phase) {
+        int i = phase.ordinal();
+        return new PhaseTimes(calls[i].sum(), totalNanos[i].sum(), maxNanos[i].get(),
+                ALLOCATION == null ? -1 : allocatedBytes[i].sum());
+    }
+
+    @Override
+    public PhaseTimes getCreateChambers() {
+        return getPhase(Phase.CREATE_CHAMBERS);
+    }
+
+    @Override
+    public PhaseTimes getSetAvailableChambers() {
+        return getPhase(Phase.SET_AVAILABLE_CHAMBERS);
+    }
+
+    @Override
+    public PhaseTimes getAssignChambers() {
+        return getPhase(Phase.ASSIGN_CHAMBERS);
+    }
+
+    @Override
+    public PhaseTimes getCreatePassages() {
+        return getPhase(Phase.CREATE_PASSAGES);
+    }
+
+    @Override
+    public long getChambersCreated() {
+        return chambers.sum();
+    }
+
+    @Override
+    public long getDoorsCreated() {
+        return doors.sum();
+    }
+
+    @Override
+    public long getPassagesCreated() {
+        return passages.sum();
+    }
+
+    @Override
+    public long getRepairedDoors() {
+        return repairedDoors.sum();
+    }
+
+    @Override
+    public long getRepairSwaps() {
+        return repairSwaps.sum();
+    }
+
+    @Override
+    public long getUnmatchedDoors() {
+        return unmatchedDoors.sum();
+    }
+
+    @Override
+    public String dump() {
+        StringBuilder out = new StringBuilder();
+        for (Phase phase : Phase.values()) {
+            out.append(phase.name().toLowerCase()).append(": ").append(getPhase(phase)).append('\n');
+        }
+        out.append("chambers: ").append(getChambersCreated()).append('\n');
+        out.append("doors: ").append(getDoorsCreated()).append('\n');
+        out.append("passages: ").append(getPassagesCreated()).append('\n');
+        out.append("repaired doors: ").append(getRepairedDoors()).append('\n');
+        out.append("repair swaps: ").append(getRepairSwaps()).append('\n');
+        out.append("unmatched doors: ").append(getUnmatchedDoors()).append('\n');
+        return out.toString();
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < calls.length; ++i) {
+            calls[i].reset();
+            totalNanos[i].reset();
+            allocatedBytes[i].reset();
+            maxNanos[i].reset();
+        }
+        chambers.reset();
+        doors.reset();
+        passages.reset();
+        repairedDoors.reset();
+        repairSwaps.reset();
+        unmatchedDoors.reset();
+    }
+}
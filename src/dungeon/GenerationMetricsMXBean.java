@@ -0,0 +1,82 @@
+/**
+ * Read the README.md for more details.
+ * @author Julian Lau
+ */
+package dungeon;
+
+/**
+ * Generation metrics as seen through JMX, under the name dungeon:type=GenerationMetrics.
+ */
+public interface GenerationMetricsMXBean {
+    /**
+     * Returns the times of Generator.createChambers and createChambersParallel.
+     * The allocated bytes of a parallel run are summed over the calling thread and every pool thread that built chambers.
+     * @return The phase times.
+     */
+    PhaseTimes getCreateChambers();
+
+    /**
+     * Returns the times of Generator.setAvailableChambers.
+     * @return The phase times.
+     */
+    PhaseTimes getSetAvailableChambers();
+
+    /**
+     * Returns the times of Generator.assignChambers.
+     * @return The phase times.
+     */
+    PhaseTimes getAssignChambers();
+
+    /**
+     * Returns the times of Generator.createPassages.
+     * @return The phase times.
+     */
+    PhaseTimes getCreatePassages();
+
+    /**
+     * Returns the number of chambers created.
+     * @return The count.
+     */
+    long getChambersCreated();
+
+    /**
+     * Returns the number of doors created for chambers and passages.
+     * @return The count.
+     */
+    long getDoorsCreated();
+
+    /**
+     * Returns the number of passages created.
+     * @return The count.
+     */
+    long getPassagesCreated();
+
+    /**
+     * Returns the number of doors assignChambers had to move because they landed on their own chamber.
+     * @return The count.
+     */
+    long getRepairedDoors();
+
+    /**
+     * Returns the number of slot swaps assignChambers tried while moving doors.
+     * @return The count.
+     */
+    long getRepairSwaps();
+
+    /**
+     * Returns the number of doors assignChambers could not link.
+     * @return The count.
+     */
+    long getUnmatchedDoors();
+
+    /**
+     * Returns every metric as text.
+     * @return One metric per line.
+     */
+    String dump();
+
+    /**
+     * Sets every metric back to zero.
+     */
+    void reset();
+}
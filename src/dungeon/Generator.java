@@ -4,17 +4,31 @@
  */
 package dungeon;
 
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
 public final class Generator {
+    /**
+     * Random partners tried before assignChambers falls back to scanning every slot.
+     */
+    private static final int REPAIR_ATTEMPTS = 16;
+    /**
+     * Where the time of every phase is recorded.
+     */
+    private static final GenerationMetrics METRICS = GenerationMetrics.get();
+    /**
+     * Blocks of chambers per pool thread in createChambers(count, pool), so uneven blocks still balance.
+     */
+    private static final int BLOCKS_PER_THREAD = 4;
     /**
      * Stores all the chambers.
      */
     private ArrayList<Chamber> chamberList;
     /**
-     * Stores all the doors.
+     * Stores all the chamber doors, indexed by door id.
      */
     private ArrayList<Door> doorList;
     /**
@@ -22,33 +36,67 @@ public final class Generator {
      */
     private ArrayList<Passage> passageList;
     /**
-     * Stores all the available chabmers.
+     * Stores the available chamber ids, one slot per door.
+     */
+    private int[] availableChambers;
+    /**
+     * First door id of each chamber; the doors of chamber c are ids chamberDoorStart[c] to chamberDoorStart[c + 1] - 1.
      */
-    private ArrayList<Chamber> availableChambers;
+    private int[] chamberDoorStart;
     /**
-     * Stores the connection between doors and chambers.
+     * Chamber id owning each door.
      */
-    private HashMap<Door, Chamber> doorToChamber;
+    private int[] doorOwner;
     /**
-     * Stores the connection between doors and doors.
+     * Chamber id each door leads to, or -1 if it is not linked.
      */
-    private HashMap<Door, Door> doorToDoor;
+    private int[] doorTarget;
     /**
-     * Stores the connection between doors and a list of chambers.
+     * Number of doors that were linked to a chamber.
      */
-    private HashMap<Door, ArrayList<Chamber>> doorToChambers;
+    private int numLinkedDoors;
+    /**
+     * Id of the chamber door each passage leads from; its owner and target are the passage ends.
+     */
+    private int[] passageDoor;
+    /**
+     * The dice every generated space rolls from.
+     */
+    private Dice dice;
+    /**
+     * Number of slot swaps tried by the current assignChambers call.
+     */
+    private long repairSwaps;
 
     /**
      * Constructor for checkstyle.
      */
     public Generator() {
+        this(new Dice());
+    }
+
+    /**
+     * Creates a generator that produces the same dungeon every time for the same seed.
+     * @param seed The seed of the dungeon.
+     */
+    public Generator(long seed) {
+        this(new Dice(seed));
+    }
+
+    /**
+     * Creates a generator that rolls from the given dice.
+     * @param theDice The dice used for the whole dungeon.
+     */
+    public Generator(Dice theDice) {
+        dice = theDice;
         chamberList = new ArrayList<Chamber>();
         doorList = new ArrayList<Door>();
         passageList = new ArrayList<Passage>();
-        availableChambers = new ArrayList<Chamber>();
-        doorToChamber = new HashMap<Door, Chamber>();
-        doorToDoor = new HashMap<Door, Door>();
-        doorToChambers = new HashMap<Door, ArrayList<Chamber>>();
+        availableChambers = new int[0];
+        chamberDoorStart = new int[1];
+        doorOwner = new int[0];
+        doorTarget = new int[0];
+        passageDoor = new int[0];
     }
 
     /**
@@ -56,11 +104,64 @@ public final class Generator {
      *  @param count Number of chambers to be made.
      */
     public void createChambers(int count) {
+        long startNanos = System.nanoTime();
+        long startBytes = METRICS.startAllocation();
         Chamber tempC;
+        Dice[] streams = splitDice(count);
         for (int i = 0; i < count; ++i) {
-            tempC = new Chamber();
+            tempC = new Chamber(streams[i]);
             chamberList.add(tempC);
         }
+        METRICS.endPhase(GenerationMetrics.Phase.CREATE_CHAMBERS, startNanos, startBytes);
+    }
+
+    /**
+     *  Creates the chambers in parallel on the common fork/join pool.
+     *  Produces the same chambers as createChambers(count) for the same seed.
+     *  @param count Number of chambers to be made.
+     */
+    public void createChambersParallel(int count) {
+        createChambers(count, ForkJoinPool.commonPool());
+    }
+
+    /**
+     *  Creates the chambers in parallel on the given pool.
+     *  Every chamber rolls from its own stream, so the result does not depend on the number of threads.
+     *  @param count Number of chambers to be made.
+     *  @param pool The pool that builds the chambers.
+     */
+    public void createChambers(int count, ForkJoinPool pool) {
+        long startNanos = System.nanoTime();
+        long startBytes = METRICS.startAllocation();
+        Dice[] streams = splitDice(count);
+        Chamber[] built = new Chamber[count];
+        Thread caller = Thread.currentThread();
+        int numBlocks = Math.min(count, pool.getParallelism() * BLOCKS_PER_THREAD);
+        pool.submit(() -> IntStream.range(0, numBlocks).parallel().forEach(k -> {
+            long workerBytes = METRICS.startAllocation();
+            int end = (int) ((long) count * (k + 1) / numBlocks);
+            for (int i = (int) ((long) count * k / numBlocks); i < end; ++i) {
+                built[i] = new Chamber(streams[i]);
+            }
+            if (Thread.currentThread() != caller) { // What the caller builds itself is counted by endPhase.
+                METRICS.workerAllocation(GenerationMetrics.Phase.CREATE_CHAMBERS, workerBytes);
+            }
+        })).join();
+        chamberList.addAll(Arrays.asList(built));
+        METRICS.endPhase(GenerationMetrics.Phase.CREATE_CHAMBERS, startNanos, startBytes);
+    }
+
+    /**
+     *  Splits one independent stream per chamber off the generator's dice, in order.
+     *  @param count Number of streams needed.
+     *  @return The streams, one per chamber.
+     */
+    private Dice[] splitDice(int count) {
+        Dice[] streams = new Dice[count];
+        for (int i = 0; i < count; ++i) {
+            streams[i] = dice.split();
+        }
+        return streams;
     }
 
     /**
@@ -75,50 +176,151 @@ public final class Generator {
      * This method adds all the chambers to a list of available chambers.
      */
     public void setAvailableChambers() {
-        for (Chamber tempC : chamberList) {
-            for (int i = 0; i < tempC.getDoorList().size(); ++i) {
-                availableChambers.add(tempC);
+        long startNanos = System.nanoTime();
+        long startBytes = METRICS.startAllocation();
+        indexDoors();
+        availableChambers = Arrays.copyOf(doorOwner, doorOwner.length);
+        shuffle(availableChambers);
+        METRICS.endPhase(GenerationMetrics.Phase.SET_AVAILABLE_CHAMBERS, startNanos, startBytes);
+    }
+
+    /**
+     * Gives every chamber door an id, in chamber order, and records which chamber owns it.
+     */
+    private void indexDoors() {
+        int numChambers = chamberList.size();
+        chamberDoorStart = new int[numChambers + 1];
+        for (int c = 0; c < numChambers; ++c) {
+            chamberDoorStart[c + 1] = chamberDoorStart[c] + chamberList.get(c).getDoorList().size();
+        }
+        doorOwner = new int[chamberDoorStart[numChambers]];
+        doorTarget = new int[doorOwner.length];
+        Arrays.fill(doorTarget, -1);
+        doorList.clear();
+        doorList.ensureCapacity(doorOwner.length);
+        for (int c = 0; c < numChambers; ++c) {
+            Arrays.fill(doorOwner, chamberDoorStart[c], chamberDoorStart[c + 1], c);
+            doorList.addAll(chamberList.get(c).getDoorList());
+        }
+    }
+
+    /**
+     * Shuffles the array in place using the generator's dice.
+     * @param array The array being shuffled.
+     */
+    private void shuffle(int[] array) {
+        for (int i = array.length - 1; i > 0; --i) {
+            int j = dice.nextIndex(i + 1);
+            int temp = array[i];
+            array[i] = array[j];
+            array[j] = temp;
+        }
+    }
+
+    /**
+     * This method assigns a door to a chamber, filling up the door target table.
+     * Door i first takes the i-th shuffled available slot; a door that landed on its own
+     * chamber swaps slots with another door that can take it. Runs in expected linear time.
+     * @return The number of doors that could not be matched (only when one chamber owns more than half the doors).
+     */
+    public int assignChambers() {
+        long startNanos = System.nanoTime();
+        long startBytes = METRICS.startAllocation();
+        int[] slots = availableChambers;
+        int total = Math.min(doorOwner.length, slots.length);
+        int repaired = 0;
+        repairSwaps = 0;
+        for (int i = 0; i < total; ++i) {
+            if (slots[i] == doorOwner[i]) {
+                repairSlot(i, slots, total);
+                ++repaired;
             }
         }
-        Collections.shuffle(availableChambers);
+        int unmatched = doorOwner.length - total;
+        numLinkedDoors = 0;
+        for (int i = 0; i < total; ++i) {
+            if (slots[i] == doorOwner[i]) { // No door could trade with this one.
+                ++unmatched;
+            } else {
+                doorTarget[i] = slots[i];
+                ++numLinkedDoors;
+            }
+        }
+        availableChambers = new int[0];
+        METRICS.doorsAssigned(repaired, repairSwaps, unmatched);
+        METRICS.endPhase(GenerationMetrics.Phase.ASSIGN_CHAMBERS, startNanos, startBytes);
+        return unmatched;
     }
 
     /**
-     * This method assigns a door to a chamber, filling up doorToChamber instance variable.
+     * Swaps the slot of a door that landed on its own chamber with a slot that fits both doors.
+     * Tries a few random partners first, then falls back to a full scan so it always terminates.
+     * @param i Id of the door being repaired.
+     * @param slots The shuffled chamber slots.
+     * @param total Number of slots in use.
+     * @return True if the door now has a chamber other than its own.
      */
-    public void assignChambers() {
-        int remaining = 1;
-        while (remaining != 0) {
-            for (Chamber tempC : chamberList) {
-                for (int i = 0; i < tempC.getDoorList().size(); ++i) {
-                    int k = 0;
-                    for (Chamber tempCC : availableChambers) {
-                        if (tempC != tempCC) {
-                            doorList.add(tempC.getDoorList().get(i));
-                            doorToChamber.put(tempC.getDoorList().get(i), tempCC);
-                            availableChambers.remove(k);
-                            break;
-                        }
-                        ++k;
-                    }
-                }
+    private boolean repairSlot(int i, int[] slots, int total) {
+        for (int attempt = 0; attempt < REPAIR_ATTEMPTS; ++attempt) {
+            if (swapSlots(i, dice.nextIndex(total), slots)) {
+                return true;
+            }
+        }
+        for (int j = 0; j < total; ++j) {
+            if (swapSlots(i, j, slots)) {
+                return true;
             }
-            remaining = availableChambers.size();
         }
+        return false;
     }
 
     /**
-     * This method creates all the passages.
+     * Swaps two slots if neither door ends up linked to its own chamber.
+     * @param i Id of the door being repaired.
+     * @param j Id of the candidate partner.
+     * @param slots The shuffled chamber slots.
+     * @return True if the slots were swapped.
+     */
+    private boolean swapSlots(int i, int j, int[] slots) {
+        ++repairSwaps;
+        if (slots[j] == doorOwner[i] || doorOwner[j] == slots[i]) {
+            return false;
+        }
+        int temp = slots[j];
+        slots[j] = slots[i];
+        slots[i] = temp;
+        return true;
+    }
+
+    /**
+     * This method creates one passage behind every linked door, recording the two chambers it joins.
+     * The passage starts at that chamber door itself, so both sides of the doorway are the same door.
      */
     public void createPassages() {
+        long startNanos = System.nanoTime();
+        long startBytes = METRICS.startAllocation();
         Passage p;
-        for (int i = 0; i < doorList.size() / 2; ++i) {
+        int first = passageList.size();
+        int numPassages = numLinkedDoors;
+        linkPassages(first, first + numPassages);
+        Door[] ends = Door.createDoors(numPassages, dice); // Every far door from one block of rolls.
+        int numRolled = ends.length;
+        for (int i = 0; i < numPassages; ++i) {
             p = new Passage();
-            p.createDoors();
-            p.addPassageSection(new PassageSection(1));
-            p.addPassageSection(new PassageSection(1));
+            int doorId = passageDoor[first + i];
+            if (doorId >= 0) {
+                p.addPassageDoor(getDoor(doorId));
+            } else { // Only when passages were already made for these doors.
+                p.addPassageDoor(new Door(dice));
+                ++numRolled;
+            }
+            p.addPassageDoor(ends[i]);
+            p.addPassageSection(new PassageSection(1, dice));
+            p.addPassageSection(new PassageSection(1, dice));
             passageList.add(p);
         }
+        METRICS.passagesCreated(numPassages, numRolled);
+        METRICS.endPhase(GenerationMetrics.Phase.CREATE_PASSAGES, startNanos, startBytes);
     }
 
     /**
@@ -129,24 +331,166 @@ public final class Generator {
         return passageList;
     }
 
+    /**
+     * Returns the dice the dungeon is rolled from.
+     * @return The generator's dice.
+     */
+    public Dice getDice() {
+        return dice;
+    }
+
+    /**
+     * Replaces the whole dungeon with one that was loaded from a file.
+     * @param chambers The loaded chambers.
+     * @param passages The loaded passages.
+     * @param targets The chamber id each door leads to, or -1, indexed by door id.
+     * @throws IOException If there is not one target per door, or a target is not another chamber.
+     */
+    void restore(ArrayList<Chamber> chambers, ArrayList<Passage> passages, int[] targets) throws IOException {
+        chamberList = chambers;
+        passageList = passages;
+        indexDoors();
+        if (targets.length != doorTarget.length) {
+            throw new IOException("Corrupt dungeon file: " + targets.length + " door links for " + doorTarget.length + " doors");
+        }
+        numLinkedDoors = 0;
+        for (int i = 0; i < doorTarget.length; ++i) {
+            if (targets[i] < -1 || targets[i] >= chambers.size() || targets[i] == doorOwner[i]) {
+                throw new IOException("Corrupt dungeon file: door " + i + " of chamber " + doorOwner[i]
+                        + " leads to chamber " + targets[i]);
+            }
+            doorTarget[i] = targets[i];
+            if (targets[i] >= 0) {
+                ++numLinkedDoors;
+            }
+        }
+        availableChambers = new int[0];
+        linkPassages(0, passages.size());
+        for (int k = 0; k < passageDoor.length; ++k) {
+            if (passageDoor[k] >= 0) { // The file holds a copy of the chamber door, so the two are shared again.
+                passages.get(k).setStartDoor(getDoor(passageDoor[k]));
+            }
+        }
+    }
+
+    /**
+     * Gives passage k the k-th linked door, in door id order, and appends new passages to the table.
+     * Passages past the last linked door are left unlinked.
+     * @param first Id of the first passage to link.
+     * @param numPassages Number of passages there will be once the new ones are added.
+     */
+    private void linkPassages(int first, int numPassages) {
+        passageDoor = Arrays.copyOf(passageDoor, numPassages);
+        Arrays.fill(passageDoor, first, numPassages, -1);
+        int k = 0;
+        for (int d = 0; d < doorTarget.length && k < numPassages; ++d) {
+            if (doorTarget[d] >= 0) {
+                if (k >= first) {
+                    passageDoor[k] = d;
+                }
+                ++k;
+            }
+        }
+    }
+
+    /**
+     * Returns the total number of chamber doors.
+     * @return The number of door ids.
+     */
+    public int getNumDoors() {
+        return doorOwner.length;
+    }
+
+    /**
+     * Returns the id of a chamber door.
+     * @param chamberNum The chamber id.
+     * @param doorNum The door number within the chamber.
+     * @return The door id.
+     */
+    public int getDoorId(int chamberNum, int doorNum) {
+        return chamberDoorStart[chamberNum] + doorNum;
+    }
+
+    /**
+     * Returns the door with the given id.
+     * @param doorId The door id.
+     * @return The door.
+     */
+    public Door getDoor(int doorId) {
+        return doorList.get(doorId);
+    }
+
+    /**
+     * Returns the chamber that owns a door.
+     * @param doorId The door id.
+     * @return The chamber id.
+     */
+    public int getDoorOwner(int doorId) {
+        return doorOwner[doorId];
+    }
+
+    /**
+     * Returns the chamber a door leads to.
+     * @param doorId The door id.
+     * @return The chamber id, or -1 if the door is not linked.
+     */
+    public int getDoorTarget(int doorId) {
+        return doorTarget[doorId];
+    }
+
+    /**
+     * Returns the chamber a chamber door leads to.
+     * @param chamberNum The chamber id.
+     * @param doorNum The door number within the chamber.
+     * @return The chamber id, or -1 if the door is not linked.
+     */
+    public int getLinkedChamber(int chamberNum, int doorNum) {
+        return doorTarget[getDoorId(chamberNum, doorNum)];
+    }
+
+    /**
+     * Returns the chamber door a passage leads from.
+     * @param passageNum The passage id.
+     * @return The door id, or -1 if the passage is not linked.
+     */
+    public int getPassageDoorId(int passageNum) {
+        return passageDoor[passageNum];
+    }
+
+    /**
+     * Returns the chamber a passage starts at, the owner of its door.
+     * @param passageNum The passage id.
+     * @return The chamber id, or -1 if the passage is not linked.
+     */
+    public int getPassageStart(int passageNum) {
+        int door = passageDoor[passageNum];
+        return door < 0 ? -1 : doorOwner[door];
+    }
+
+    /**
+     * Returns the chamber a passage ends at, the target of its door.
+     * @param passageNum The passage id.
+     * @return The chamber id, or -1 if the passage is not linked.
+     */
+    public int getPassageEnd(int passageNum) {
+        int door = passageDoor[passageNum];
+        return door < 0 ? -1 : doorTarget[door];
+    }
+
     /**
      * This method displays all the linked doors.
      */
     public void displayLinks() {
         System.out.println("***** LINKED DOORS *****");
-        int i = 1;
-        for (Chamber tempC : chamberList) {
-            System.out.println("Chamber " + i + ":");
-            ++i;
-            int k = 1;
-            for (Door tempD : tempC.getDoorList()) {
-                System.out.print("Door " + k + ": ");
-                for (int j = 0; j < 5; ++j) {
-                    if (doorToChamber.get(tempD) == chamberList.get(j)) {
-                        System.out.println("C" + (j + 1));
-                    }
+        for (int c = 0; c < chamberList.size(); ++c) {
+            System.out.println("Chamber " + (c + 1) + ":");
+            for (int d = chamberDoorStart[c]; d < chamberDoorStart[c + 1]; ++d) {
+                System.out.print("Door " + (d - chamberDoorStart[c] + 1) + ": ");
+                if (doorTarget[d] >= 0) {
+                    System.out.println("C" + (doorTarget[d] + 1));
+                } else {
+                    System.out.println("none");
                 }
-                ++k;
             }
             System.out.println(""); //Formatting
         }
@@ -6,7 +6,9 @@ package dungeon;
 
 import dnd.models.Monster;
 import dnd.models.Treasure;
-import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * A passage begins at a door and ends at a door.
@@ -17,29 +19,28 @@ import java.util.ArrayList;
 public class Passage extends Space {
 
     /**
-     * Stores all the passage sections in this passage.
+     * Stores all the passage sections in this passage. Copied on write, so it can be read while sections are added.
      */
-    private ArrayList<PassageSection> thePassage;
+    private List<PassageSection> thePassage;
     /**
-     * Stores all the doors in this passage.
+     * Stores all the doors in this passage. Copied on write, like the sections.
      */
-    private ArrayList<Door> doors;
+    private List<Door> doors;
     /**
-     * The list of all the monsters.
+     * The monsters and treasure in the passage. Replaced, never changed, on every edit,
+     * so readers on other threads always see a whole snapshot.
      */
-    private ArrayList<Monster> monsterList;
+    private volatile SpaceContents held = SpaceContents.EMPTY;
     /**
-     * The list of all the treasures.
+     * The last generated description and the contents it was generated from, or null if a section changed since.
      */
-    private ArrayList<Treasure> treasureList;
+    private volatile SpaceDescription description;
     /**
      * Passage constructor.
      */
     public Passage() {
-        monsterList = new ArrayList<Monster>();
-        treasureList = new ArrayList<Treasure>();
-        thePassage = new ArrayList<PassageSection>();
-        doors = new ArrayList<Door>();
+        thePassage = new CopyOnWriteArrayList<PassageSection>();
+        doors = new CopyOnWriteArrayList<Door>();
     }
 
     /**
@@ -48,14 +49,23 @@ public class Passage extends Space {
      */
     public void addPassageSection(PassageSection toAdd) {
         thePassage.add(toAdd);
+        toAdd.setOwner(this);
+        description = null;
+    }
+
+    /**
+     * Drops the cached description after one of the sections changed.
+     */
+    void sectionChanged() {
+        description = null;
     }
 
     /**
      * Returns all the passage sections in the passage.
-     * @return Returns an array list of all the passage sections.
+     * @return Returns a read-only list of all the passage sections.
      */
-    public ArrayList<PassageSection> getPassages() {
-        return thePassage;
+    public List<PassageSection> getPassages() {
+        return Collections.unmodifiableList(thePassage);
     }
 
     /**
@@ -64,89 +74,149 @@ public class Passage extends Space {
      */
     @Override
     public void addDoor(Door newDoor) {
-        thePassage.get(getPassages().size() - 1).setDoor(newDoor);
+        thePassage.get(thePassage.size() - 1).setDoor(newDoor);
+        description = null;
     }
 
     /**
      * Creates two doors for the passage.
      */
     public void createDoors() {
-        doors.add(new Door());
-        doors.add(new Door());
+        createDoors(new Dice());
+    }
+
+    /**
+     * Creates two doors for the passage, rolled from the given dice.
+     * @param dice The dice used to randomize the doors.
+     */
+    public void createDoors(Dice dice) {
+        for (Door door : Door.createDoors(2, dice)) {
+            doors.add(door);
+        }
+    }
+
+    /**
+     * Adds a door the passage leads to.
+     * @param door The door.
+     */
+    void addPassageDoor(Door door) {
+        doors.add(door);
+    }
+
+    /**
+     * Makes a chamber door the first door of the passage, the one it leads from.
+     * @param door The chamber door.
+     */
+    void setStartDoor(Door door) {
+        if (doors.isEmpty()) {
+            doors.add(door);
+        } else {
+            doors.set(0, door);
+        }
+        description = null;
     }
 
     /**
      * Gets all of the doors in the entire passage.
-     * @return An array list of doors.
+     * @return A read-only list of doors.
      */
-    public ArrayList<Door> getDoors() {
-        return doors;
+    public List<Door> getDoors() {
+        return Collections.unmodifiableList(doors);
     }
 
     /**
-     * Gets the description of the entire passage.
+     * Gets the description of the entire passage, generating it only if the passage changed since the last call.
      * @return A string of the description.
      */
     @Override
     public String getDescription() {
-        String description = "";
-        for (int i = 0; i < thePassage.size(); ++i) {
-            description = description + thePassage.get(i).getDescription() + "\n";
+        SpaceContents current = held;
+        SpaceDescription cached = description;
+        if (cached != null && cached.isOf(current)) {
+            return cached.getText();
         }
-        for (int i = 0; i < treasureList.size(); ++i) {
-            description = description + "The treasure is " + treasureList.get(i).getDescription() + " contained inside " + treasureList.get(i).getContainer() + ".\n";
-        }
-        for (int i = 0; i < monsterList.size(); ++i) {
-            description = description + "The monsters are " + monsterList.get(i).getMinNum() + " to " + monsterList.get(i).getMaxNum() + " " + monsterList.get(i).getDescription() + ".\n";
-        }
-        return description;
+        String text = DescriptionRenderer.describe(this, current);
+        description = new SpaceDescription(current, text);
+        return text;
+    }
+
+    /**
+     * Replaces the monsters and treasure with those of a dungeon state.
+     * @param newContents The new contents.
+     */
+    synchronized void setContents(SpaceContents newContents) {
+        held = newContents;
+    }
+
+    /**
+     * Returns the monsters and treasure as one snapshot that never changes.
+     * @return The current contents.
+     */
+    SpaceContents getContents() {
+        return held;
     }
 
     /**
      * Gets the list of treasures.
-     * @return The list of treasure.
+     * @return Read-only list of treasure, a snapshot that later edits do not change.
      */
-    public ArrayList<Treasure> getTreasureList() {
-        return treasureList;
+    public List<Treasure> getTreasureList() {
+        return held.getTreasureList();
     }
 
     /**
      * Adds a treasure to the passage.
      * @param newTreasure The treasure added.
      */
-    public void addTreasure(Treasure newTreasure) {
-        treasureList.add(newTreasure);
+    public synchronized void addTreasure(Treasure newTreasure) {
+        held = held.withTreasure(newTreasure);
     }
 
     /**
      * Removes the treasure from the passage.
      * @param treasureNum The index of the treasure.
      */
-    public void removeTreasure(int treasureNum) {
-        treasureList.remove(treasureNum);
+    public synchronized void removeTreasure(int treasureNum) {
+        held = held.withoutTreasure(treasureNum);
+    }
+
+    /**
+     * Removes several treasures in one pass.
+     * @param treasureNums The indexes of the treasures, in any order.
+     */
+    public synchronized void removeTreasure(int[] treasureNums) {
+        held = held.withoutTreasure(treasureNums);
     }
 
     /**
      * Gets the list of monsters.
-     * @return the list of mosnters.
+     * @return Read-only list of monsters, a snapshot that later edits do not change.
      */
-    public ArrayList<Monster> getMonsterList() {
-        return monsterList;
+    public List<Monster> getMonsterList() {
+        return held.getMonsterList();
     }
 
     /**
      * Adds a monster to the passage.
      * @param newMonster The mosnter added.
      */
-    public void addMonster(Monster newMonster) {
-        monsterList.add(newMonster);
+    public synchronized void addMonster(Monster newMonster) {
+        held = held.withMonster(newMonster);
     }
 
     /**
      * Removes a mosnter from the list of monsters.
      * @param monsterNum The index of the monster.
      */
-    public void removeMonster(int monsterNum) {
-        monsterList.remove(monsterNum);
+    public synchronized void removeMonster(int monsterNum) {
+        held = held.withoutMonster(monsterNum);
+    }
+
+    /**
+     * Removes several monsters in one pass.
+     * @param monsterNums The indexes of the monsters, in any order.
+     */
+    public synchronized void removeMonster(int[] monsterNums) {
+        held = held.withoutMonster(monsterNums);
     }
 }
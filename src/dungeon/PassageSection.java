@@ -5,10 +5,60 @@
 package dungeon;
 
 import dnd.models.Monster;
-import dnd.die.D20;
 
 /* Represents a 10 ft section of passageway */
 public class PassageSection {
+    /**
+     * Section kind: a passage with no door of its own.
+     */
+    private static final int PLAIN = 0;
+    /**
+     * Section kind: ends in a door.
+     */
+    private static final int DOOR = 1;
+    /**
+     * Section kind: ends in an archway.
+     */
+    private static final int ARCHWAY = 2;
+    /**
+     * Section kind: holds a wandering monster.
+     */
+    private static final int MONSTER = 3;
+    /**
+     * Kind of section made by each d20 roll of modified table 1. Index 0 is never rolled.
+     */
+    private static final int[] KINDS = {
+        PLAIN,
+        PLAIN, PLAIN, DOOR, DOOR, DOOR, PLAIN, PLAIN, PLAIN, PLAIN, PLAIN,
+        PLAIN, PLAIN, PLAIN, ARCHWAY, ARCHWAY, ARCHWAY, PLAIN, PLAIN, PLAIN, MONSTER,
+    };
+    /**
+     * Description of the section made by each d20 roll, null for the monster roll,
+     * which is described from its monster.
+     */
+    private static final String[] DESCRIPTIONS = {
+        null,
+        "Passage goes straight for 10 ft.", // 1
+        "Passage goes straight for 10 ft.",
+        "Passage ends in Door to a Chamber.", // 3
+        "Passage ends in Door to a Chamber.",
+        "Passage ends in Door to a Chamber.",
+        "Archway (door) to right (main passage continues straight for 10 ft).", // 6
+        "Archway (door) to right (main passage continues straight for 10 ft).",
+        "Archway (door) to the left (main passage continues straight for 10 ft).", // 8
+        "Archway (door) to the left (main passage continues straight for 10 ft).",
+        "Passage turns to the left and continues for 10 ft.", // 10
+        "Passage turns to the left and continues for 10 ft.",
+        "Passage turns to the right and continues for 10 ft.", // 12
+        "Passage turns to the right and continues for 10 ft.",
+        "Passage ends in archway (door) to chamber.", // 14
+        "Passage ends in archway (door) to chamber.",
+        "Passage ends in archway (door) to chamber.",
+        "Stairs (passage continues straight for 10 ft).", // 17
+        "Dead End.", // 18
+        "Dead End.",
+        null, // 20
+    };
 
     /**
      * The passage section description.
@@ -26,12 +76,24 @@ public class PassageSection {
      * The door in the passage section (if there is one).
      */
     private Door door;
+    /**
+     * Dice used to randomize the section and its door.
+     */
+    private Dice dice;
+    /**
+     * The table roll the section was made from.
+     */
+    private int tableRoll;
+    /**
+     * The passage the section belongs to, told when the section changes, or null.
+     */
+    private volatile Passage owner;
 
     /**
      * Sets up the 10 foot section with default settings.
      */
     public PassageSection() {
-        randomizePassageSection(0);
+        this(0, new Dice());
     }
 
     /**
@@ -39,6 +101,16 @@ public class PassageSection {
      * @param roll Sets the passage section description to roll inputted.
      */
     public PassageSection(int roll) {
+        this(roll, new Dice());
+    }
+
+    /**
+     * Sets up a passage section, rolling anything random from the given dice.
+     * @param roll A # from 1-20, if 0 is passed, a random number is generated.
+     * @param theDice The dice used to randomize the section.
+     */
+    public PassageSection(int roll, Dice theDice) {
+        dice = theDice;
         randomizePassageSection(roll); //Random settings
     }
 
@@ -47,59 +119,64 @@ public class PassageSection {
      * @param roll A # from 1-20, if 0 is passed, a random number is generated.
      */
     private void randomizePassageSection(int roll) {
-        D20 d20 = new D20();
-        setMonsterExist(false);
         if (roll == 0) {
-            roll = d20.roll();
-        }
-        if (roll == 1 || roll == 2 || roll == 6 || roll == 7
-            || roll == 8 || roll == 9 || roll == 10 || roll == 11
-            || roll == 12 || roll == 13 || roll == 17 || roll == 18 || roll == 19) {
-            setDescriptionNoDoor(roll);
-        } else {
-            setDescriptionDoor(roll);
+            roll = dice.d20();
         }
+        int kind = KINDS[roll];
+        setSection(roll, kind == DOOR || kind == ARCHWAY ? new Door(dice) : null);
     }
 
     /**
-     * Sets the description of the door based on the roll.
-     * @param roll Roll that sets the description.
-     */
-    private void setDescriptionNoDoor(int roll) {
-        if (roll == 1 || roll == 2) {
-            setDescription("Passage goes straight for 10 ft.");
-        } else if (roll == 6 || roll == 7) {
-            setDescription("Archway (door) to right (main passage continues straight for 10 ft).");
-        } else if (roll == 8 || roll == 9) {
-            setDescription("Archway (door) to the left (main passage continues straight for 10 ft).");
-        } else if (roll == 10 || roll == 11) {
-            setDescription("Passage turns to the left and continues for 10 ft.");
-        } else if (roll == 12 || roll == 13) {
-            setDescription("Passage turns to the right and continues for 10 ft.");
-        } else if (roll == 17) {
-            setDescription("Stairs (passage continues straight for 10 ft).");
-        } else if (roll == 18 || roll == 19) {
-            setDescription("Dead End.");
+     * Sets the description and settings of the passage section from the compiled table.
+     * @param roll A # from 1-20.
+     * @param newDoor The door, used only if the roll gives the section a door or archway.
+     */
+    private void setSection(int roll, Door newDoor) {
+        setMonsterExist(false);
+        tableRoll = roll;
+        setDescription(DESCRIPTIONS[roll]);
+        switch (KINDS[roll]) {
+            case DOOR:
+                setDoor(newDoor);
+                break;
+            case ARCHWAY:
+                setDoor(newDoor);
+                newDoor.setArchway(true);
+                break;
+            case MONSTER:
+                setMonster(new Monster());
+                break;
+            default:
+                break;
         }
     }
 
     /**
-     * Sets the description of the door based on the roll.
-     * @param roll Roll that sets the description.
+     * Sets the passage the section belongs to.
+     * @param passage The passage.
      */
-    private void setDescriptionDoor(int roll) {
-        if (roll == 3 || roll == 4 || roll == 5) {
-            setDescription("Passage ends in Door to a Chamber.");
-            setDoor(new Door());
-        } else if (roll == 14 || roll == 15 || roll == 16) {
-            setDescription("Passage ends in archway (door) to chamber.");
-            setDoor(new Door());
-            getDoor().setArchway(true);
-        } else if (roll == 20) {
-            setMonster(new Monster());
+    void setOwner(Passage passage) {
+        owner = passage;
+    }
+
+    /**
+     * Tells the owning passage that its description is out of date.
+     */
+    private void changed() {
+        Passage passage = owner;
+        if (passage != null) {
+            passage.sectionChanged();
         }
     }
 
+    /**
+     * Returns the table roll the section was made from.
+     * @return A # from 1-20.
+     */
+    int getRoll() {
+        return tableRoll;
+    }
+
     /**
      * Sets the passage section description.
      * @param newDescription Sets the description to this.
@@ -139,7 +216,8 @@ public class PassageSection {
     public void setMonster(Monster newMonster) {
         setMonsterExist(true);
         monster = newMonster;
-        setDescription("Wandering Monster (passage continues straight for 10 ft).\nThe monsters are " + getMonster().getMinNum() + " to " + getMonster().getMaxNum() + " " + getMonster().getDescription() + ".");
+        setDescription(DescriptionRenderer.describeWanderingMonster(newMonster));
+        changed();
     }
 
     /**
@@ -156,6 +234,7 @@ public class PassageSection {
      */
     public void setDoor(Door newDoor) {
         door = newDoor;
+        changed();
     }
 
     /**
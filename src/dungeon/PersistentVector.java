@@ -0,0 +1,180 @@
+/**
+ * Read the README.md for more details.
+ * @author Julian Lau
+ */
+package dungeon;
+
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Fixed size array that is never changed: set returns a new version that shares
+ * every untouched part with the old one. Items sit in a tree of 32 wide nodes, so
+ * get and set cost O(log32 n) and a set copies one node per level.
+ * @param <T> The item type.
+ */
+final class PersistentVector<T> {
+    /**
+     * Index bits used per tree level.
+     */
+    private static final int BITS = 5;
+    /**
+     * Children per node.
+     */
+    private static final int WIDTH = 1 << BITS;
+    /**
+     * Mask of the index bits of one level.
+     */
+    private static final int MASK = WIDTH - 1;
+    /**
+     * Number of items.
+     */
+    private final int size;
+    /**
+     * Index shift of the root level; 0 when the root holds the items.
+     */
+    private final int shift;
+    /**
+     * The root node.
+     */
+    private final Object[] root;
+
+    /**
+     * Creates a version from its tree.
+     * @param theSize Number of items.
+     * @param theShift Index shift of the root level.
+     * @param theRoot The root node.
+     */
+    private PersistentVector(int theSize, int theShift, Object[] theRoot) {
+        size = theSize;
+        shift = theShift;
+        root = theRoot;
+    }
+
+    /**
+     * Creates a vector holding the items, building the tree from the leaves up.
+     * @param items The items, in order.
+     * @param <T> The item type.
+     * @return The vector.
+     */
+    static <T> PersistentVector<T> of(List<T> items) {
+        int numNodes = Math.max(1, (items.size() + MASK) / WIDTH);
+        Object[][] nodes = new Object[numNodes][];
+        for (int n = 0; n < numNodes; ++n) {
+            nodes[n] = new Object[WIDTH];
+            for (int k = 0; k < WIDTH && n * WIDTH + k < items.size(); ++k) {
+                nodes[n][k] = items.get(n * WIDTH + k);
+            }
+        }
+        int level = 0;
+        while (nodes.length > 1) {
+            Object[][] parents = new Object[(nodes.length + MASK) / WIDTH][];
+            for (int p = 0; p < parents.length; ++p) {
+                parents[p] = new Object[WIDTH];
+                for (int k = 0; k < WIDTH && p * WIDTH + k < nodes.length; ++k) {
+                    parents[p][k] = nodes[p * WIDTH + k];
+                }
+            }
+            nodes = parents;
+            level += BITS;
+        }
+        return new PersistentVector<T>(items.size(), level, nodes[0]);
+    }
+
+    /**
+     * Returns the number of items.
+     * @return The size.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns an item.
+     * @param i The index.
+     * @return The item.
+     */
+    @SuppressWarnings("unchecked")
+    T get(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Index " + i + " of " + size);
+        }
+        Object[] node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Object[]) node[(i >>> level) & MASK];
+        }
+        return (T) node[i & MASK];
+    }
+
+    /**
+     * Returns a version with one item replaced. This version is not changed.
+     * @param i The index.
+     * @param item The new item.
+     * @return The new version.
+     */
+    PersistentVector<T> set(int i, T item) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Index " + i + " of " + size);
+        }
+        return new PersistentVector<T>(size, shift, setIn(root, shift, i, item));
+    }
+
+    /**
+     * Copies the path from a node down to an item, replacing the item.
+     * @param node The node on the path.
+     * @param level Index shift of the node's level.
+     * @param i The index.
+     * @param item The new item.
+     * @return The copied node.
+     */
+    private static Object[] setIn(Object[] node, int level, int i, Object item) {
+        Object[] copy = node.clone();
+        if (level == 0) {
+            copy[i & MASK] = item;
+        } else {
+            int k = (i >>> level) & MASK;
+            copy[k] = setIn((Object[]) node[k], level - BITS, i, item);
+        }
+        return copy;
+    }
+
+    /**
+     * Finds the items that differ from another version of the same vector.
+     * Shared nodes are skipped, so the cost depends on the number of changes, not the size.
+     * @param other A version made from this one by set, or this one from it.
+     * @param changed Receives the index of every item that is not the same object in both.
+     */
+    void forEachChange(PersistentVector<T> other, IntConsumer changed) {
+        if (other.size != size || other.shift != shift) {
+            throw new IllegalArgumentException("Not a version of this vector");
+        }
+        compare(root, other.root, shift, 0, changed);
+    }
+
+    /**
+     * Compares two nodes at the same place in two versions.
+     * @param a The node in this version.
+     * @param b The node in the other version.
+     * @param level Index shift of the nodes' level.
+     * @param base Index of the first item under the nodes.
+     * @param changed Receives the index of every differing item.
+     */
+    private void compare(Object[] a, Object[] b, int level, int base, IntConsumer changed) {
+        if (a == b) {
+            return;
+        }
+        for (int k = 0; k < WIDTH; ++k) {
+            int first = base + (k << level);
+            if (first >= size) {
+                return;
+            }
+            if (level == 0) {
+                if (a[k] != b[k]) {
+                    changed.accept(first);
+                }
+            } else {
+                compare((Object[]) a[k], (Object[]) b[k], level - BITS, first, changed);
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ * Read the README.md for more details.
+ * @author Julian Lau
+ */
+package dungeon;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Snapshot of the time and memory spent in one generation phase.
+ */
+public final class PhaseTimes {
+    /**
+     * Number of times the phase ran.
+     */
+    private final long calls;
+    /**
+     * Total time spent in the phase, in nanoseconds.
+     */
+    private final long totalNanos;
+    /**
+     * Longest single run of the phase, in nanoseconds.
+     */
+    private final long maxNanos;
+    /**
+     * Bytes allocated during the phase, by the calling thread and any pool threads it used, or -1 if the JVM cannot tell.
+     */
+    private final long allocatedBytes;
+
+    /**
+     * Creates a snapshot.
+     * @param theCalls Number of times the phase ran.
+     * @param theTotalNanos Total time spent in the phase, in nanoseconds.
+     * @param theMaxNanos Longest single run, in nanoseconds.
+     * @param theAllocatedBytes Bytes allocated during the phase, or -1 if unknown.
+     */
+    @ConstructorProperties({"calls", "totalNanos", "maxNanos", "allocatedBytes"})
+    public PhaseTimes(long theCalls, long theTotalNanos, long theMaxNanos, long theAllocatedBytes) {
+        calls = theCalls;
+        totalNanos = theTotalNanos;
+        maxNanos = theMaxNanos;
+        allocatedBytes = theAllocatedBytes;
+    }
+
+    /**
+     * Returns the number of times the phase ran.
+     * @return The count.
+     */
+    public long getCalls() {
+        return calls;
+    }
+
+    /**
+     * Returns the total time spent in the phase.
+     * @return The time in nanoseconds.
+     */
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * Returns the longest single run of the phase.
+     * @return The time in nanoseconds.
+     */
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    /**
+     * Returns the bytes allocated during the phase, by the calling thread and by the pool threads
+     * that built chambers for createChambersParallel.
+     * @return The bytes, or -1 if the JVM cannot tell.
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * Returns the snapshot as one line of text.
+     * @return The text.
+     */
+    @Override
+    public String toString() {
+        double mean = calls == 0 ? 0 : totalNanos / 1e6 / calls;
+        return String.format("calls=%d total=%.3fms mean=%.3fms max=%.3fms allocated=%dB",
+                calls, totalNanos / 1e6, mean, maxNanos / 1e6, allocatedBytes);
+    }
+}
@@ -0,0 +1,205 @@
+/**
+ * Read the README.md for more details.
+ * @author Julian Lau
+ */
+package dungeon;
+
+/**
+ * How many monsters and treasures DungeonPopulator adds to each space, and which rolls they are made from.
+ * A chamber gets its fixed count plus its density times its area; a fractional part becomes a chance of one more.
+ * Everything starts at 0, with rolls from 1 to 100.
+ */
+public final class PopulationRule {
+    /**
+     * Monsters added to every chamber.
+     */
+    private int chamberMonsters;
+    /**
+     * Treasures added to every chamber.
+     */
+    private int chamberTreasure;
+    /**
+     * Extra monsters per 1000 square ft of chamber.
+     */
+    private double monsterDensity;
+    /**
+     * Extra treasures per 1000 square ft of chamber.
+     */
+    private double treasureDensity;
+    /**
+     * Monsters added to every passage.
+     */
+    private int passageMonsters;
+    /**
+     * Treasures added to every passage.
+     */
+    private int passageTreasure;
+    /**
+     * Lowest monster roll.
+     */
+    private int minMonsterRoll = 1;
+    /**
+     * Highest monster roll.
+     */
+    private int maxMonsterRoll = 100;
+    /**
+     * Lowest treasure roll.
+     */
+    private int minTreasureRoll = 1;
+    /**
+     * Highest treasure roll.
+     */
+    private int maxTreasureRoll = 100;
+
+    /**
+     * Sets the number of monsters and treasures added to every chamber.
+     * @param monsters Number of monsters.
+     * @param treasure Number of treasures.
+     * @throws IllegalArgumentException If a number is negative.
+     */
+    public void setChamberCounts(int monsters, int treasure) {
+        checkNotNegative(monsters, treasure);
+        chamberMonsters = monsters;
+        chamberTreasure = treasure;
+    }
+
+    /**
+     * Sets the extra monsters and treasures per 1000 square ft of chamber.
+     * @param monsters Monsters per 1000 square ft.
+     * @param treasure Treasures per 1000 square ft.
+     * @throws IllegalArgumentException If a density is negative.
+     */
+    public void setChamberDensities(double monsters, double treasure) {
+        if (!(monsters >= 0) || !(treasure >= 0)) { // Also rejects NaN.
+            throw new IllegalArgumentException("densities cannot be negative");
+        }
+        monsterDensity = monsters;
+        treasureDensity = treasure;
+    }
+
+    /**
+     * Sets the number of monsters and treasures added to every passage.
+     * @param monsters Number of monsters.
+     * @param treasure Number of treasures.
+     * @throws IllegalArgumentException If a number is negative.
+     */
+    public void setPassageCounts(int monsters, int treasure) {
+        checkNotNegative(monsters, treasure);
+        passageMonsters = monsters;
+        passageTreasure = treasure;
+    }
+
+    /**
+     * Sets the range the monster rolls are drawn from.
+     * @param min The lowest roll, at least 1.
+     * @param max The highest roll, at most 100.
+     * @throws IllegalArgumentException If the range is not within 1 to 100.
+     */
+    public void setMonsterRolls(int min, int max) {
+        checkRolls(min, max);
+        minMonsterRoll = min;
+        maxMonsterRoll = max;
+    }
+
+    /**
+     * Sets the range the treasure rolls are drawn from.
+     * @param min The lowest roll, at least 1.
+     * @param max The highest roll, at most 100.
+     * @throws IllegalArgumentException If the range is not within 1 to 100.
+     */
+    public void setTreasureRolls(int min, int max) {
+        checkRolls(min, max);
+        minTreasureRoll = min;
+        maxTreasureRoll = max;
+    }
+
+    /**
+     * Throws if a count is negative.
+     * @param monsters Number of monsters.
+     * @param treasure Number of treasures.
+     */
+    private static void checkNotNegative(int monsters, int treasure) {
+        if (monsters < 0 || treasure < 0) {
+            throw new IllegalArgumentException("counts cannot be negative");
+        }
+    }
+
+    /**
+     * Throws if a roll range is empty or not within 1 to 100.
+     * @param min The lowest roll.
+     * @param max The highest roll.
+     */
+    private static void checkRolls(int min, int max) {
+        if (min < 1 || max > 100 || min > max) {
+            throw new IllegalArgumentException("rolls must be from 1 to 100, got " + min + " to " + max);
+        }
+    }
+
+    /**
+     * Returns the number of monsters to add to a chamber.
+     * @param area The chamber area in square ft.
+     * @param dice The dice rolled for a fractional density.
+     * @return The number of monsters.
+     */
+    int chamberMonsters(int area, Dice dice) {
+        return chamberMonsters + fromDensity(monsterDensity * area / 1000, dice);
+    }
+
+    /**
+     * Returns the number of treasures to add to a chamber.
+     * @param area The chamber area in square ft.
+     * @param dice The dice rolled for a fractional density.
+     * @return The number of treasures.
+     */
+    int chamberTreasure(int area, Dice dice) {
+        return chamberTreasure + fromDensity(treasureDensity * area / 1000, dice);
+    }
+
+    /**
+     * Turns an expected count into a whole count, rounding up with a chance equal to the fraction.
+     * @param expected The expected count.
+     * @param dice The dice rolled.
+     * @return The count.
+     */
+    private static int fromDensity(double expected, Dice dice) {
+        int whole = (int) expected;
+        if (dice.nextDouble() < expected - whole) {
+            ++whole;
+        }
+        return whole;
+    }
+
+    /**
+     * Returns the number of monsters to add to a passage.
+     * @return The number of monsters.
+     */
+    int passageMonsters() {
+        return passageMonsters;
+    }
+
+    /**
+     * Returns the number of treasures to add to a passage.
+     * @return The number of treasures.
+     */
+    int passageTreasure() {
+        return passageTreasure;
+    }
+
+    /**
+     * Rolls a monster type.
+     * @param dice The dice rolled.
+     * @return A roll within the monster range.
+     */
+    int rollMonster(Dice dice) {
+        return minMonsterRoll + dice.nextIndex(maxMonsterRoll - minMonsterRoll + 1);
+    }
+
+    /**
+     * Rolls a treasure type.
+     * @param dice The dice rolled.
+     * @return A roll within the treasure range.
+     */
+    int rollTreasure(Dice dice) {
+        return minTreasureRoll + dice.nextIndex(maxTreasureRoll - minTreasureRoll + 1);
+    }
+}
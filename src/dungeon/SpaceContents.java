@@ -0,0 +1,222 @@
+/**
+ * Read the README.md for more details.
+ * @author Julian Lau
+ */
+package dungeon;
+
+import dnd.models.Monster;
+import dnd.models.Treasure;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The monsters and treasure of one chamber or passage at one point in time.
+ * Never changed after it is made; every edit returns new contents.
+ */
+public final class SpaceContents {
+    /**
+     * Contents with no monsters and no treasure.
+     */
+    static final SpaceContents EMPTY = new SpaceContents(new Monster[0], new Treasure[0]);
+    /**
+     * The monsters, in order.
+     */
+    private final Monster[] monsters;
+    /**
+     * The treasure, in order.
+     */
+    private final Treasure[] treasure;
+
+    /**
+     * Creates contents from arrays it will own.
+     * @param theMonsters The monsters.
+     * @param theTreasure The treasure.
+     */
+    private SpaceContents(Monster[] theMonsters, Treasure[] theTreasure) {
+        monsters = theMonsters;
+        treasure = theTreasure;
+    }
+
+    /**
+     * Returns the number of monsters.
+     * @return The number of monsters.
+     */
+    public int getNumMonsters() {
+        return monsters.length;
+    }
+
+    /**
+     * Returns a monster.
+     * @param i The monster number.
+     * @return The monster.
+     */
+    public Monster getMonster(int i) {
+        return monsters[i];
+    }
+
+    /**
+     * Returns the number of treasures.
+     * @return The number of treasures.
+     */
+    public int getNumTreasure() {
+        return treasure.length;
+    }
+
+    /**
+     * Returns a treasure.
+     * @param i The treasure number.
+     * @return The treasure.
+     */
+    public Treasure getTreasure(int i) {
+        return treasure[i];
+    }
+
+    /**
+     * Returns these contents with a monster added at the end.
+     * @param monster The monster.
+     * @return The new contents.
+     */
+    public SpaceContents withMonster(Monster monster) {
+        Monster[] more = Arrays.copyOf(monsters, monsters.length + 1);
+        more[monsters.length] = monster;
+        return new SpaceContents(more, treasure);
+    }
+
+    /**
+     * Returns these contents without one monster.
+     * @param i The monster number.
+     * @return The new contents.
+     */
+    public SpaceContents withoutMonster(int i) {
+        return new SpaceContents(remove(monsters, i), treasure);
+    }
+
+    /**
+     * Returns these contents with monsters and treasures added at the end, in one copy.
+     * @param moreMonsters The monsters added.
+     * @param moreTreasure The treasures added.
+     * @return The new contents, or these if nothing is added.
+     */
+    public SpaceContents withAll(Monster[] moreMonsters, Treasure[] moreTreasure) {
+        if (moreMonsters.length == 0 && moreTreasure.length == 0) {
+            return this;
+        }
+        return new SpaceContents(concat(monsters, moreMonsters), concat(treasure, moreTreasure));
+    }
+
+    /**
+     * Returns these contents without several monsters, in one pass.
+     * @param indices The monster numbers, in any order. Repeats are removed once.
+     * @return The new contents.
+     */
+    public SpaceContents withoutMonster(int[] indices) {
+        return new SpaceContents(remove(monsters, indices), treasure);
+    }
+
+    /**
+     * Returns these contents with a treasure added at the end.
+     * @param newTreasure The treasure.
+     * @return The new contents.
+     */
+    public SpaceContents withTreasure(Treasure newTreasure) {
+        Treasure[] more = Arrays.copyOf(treasure, treasure.length + 1);
+        more[treasure.length] = newTreasure;
+        return new SpaceContents(monsters, more);
+    }
+
+    /**
+     * Returns these contents without one treasure.
+     * @param i The treasure number.
+     * @return The new contents.
+     */
+    public SpaceContents withoutTreasure(int i) {
+        return new SpaceContents(monsters, remove(treasure, i));
+    }
+
+    /**
+     * Returns these contents without several treasures, in one pass.
+     * @param indices The treasure numbers, in any order. Repeats are removed once.
+     * @return The new contents.
+     */
+    public SpaceContents withoutTreasure(int[] indices) {
+        return new SpaceContents(monsters, remove(treasure, indices));
+    }
+
+    /**
+     * Returns an array followed by another, or the first one if the second is empty.
+     * @param array The first array.
+     * @param more The array added at the end.
+     * @param <T> The item type.
+     * @return The joined array.
+     */
+    private static <T> T[] concat(T[] array, T[] more) {
+        if (more.length == 0) {
+            return array;
+        }
+        T[] all = Arrays.copyOf(array, array.length + more.length);
+        System.arraycopy(more, 0, all, array.length, more.length);
+        return all;
+    }
+
+    /**
+     * Returns a copy of an array without one item.
+     * @param array The array.
+     * @param i The index removed.
+     * @param <T> The item type.
+     * @return The shorter copy.
+     */
+    private static <T> T[] remove(T[] array, int i) {
+        if (i < 0 || i >= array.length) {
+            throw new IndexOutOfBoundsException("Index " + i + " of " + array.length);
+        }
+        T[] less = Arrays.copyOf(array, array.length - 1);
+        System.arraycopy(array, i + 1, less, i, array.length - i - 1);
+        return less;
+    }
+
+    /**
+     * Returns a copy of an array without several items, marking them first so the copy is one pass.
+     * @param array The array.
+     * @param indices The indices removed.
+     * @param <T> The item type.
+     * @return The shorter copy.
+     */
+    private static <T> T[] remove(T[] array, int[] indices) {
+        boolean[] removed = new boolean[array.length];
+        int count = 0;
+        for (int i : indices) {
+            if (i < 0 || i >= array.length) {
+                throw new IndexOutOfBoundsException("Index " + i + " of " + array.length);
+            }
+            if (!removed[i]) {
+                removed[i] = true;
+                ++count;
+            }
+        }
+        T[] less = Arrays.copyOf(array, array.length - count);
+        int k = 0;
+        for (int i = 0; i < array.length; ++i) {
+            if (!removed[i]) {
+                less[k++] = array[i];
+            }
+        }
+        return less;
+    }
+
+    /**
+     * Returns the monsters as a read-only list backed by these contents.
+     * @return The list.
+     */
+    public List<Monster> getMonsterList() {
+        return Collections.unmodifiableList(Arrays.asList(monsters));
+    }
+
+    /**
+     * Returns the treasure as a read-only list backed by these contents.
+     * @return The list.
+     */
+    public List<Treasure> getTreasureList() {
+        return Collections.unmodifiableList(Arrays.asList(treasure));
+    }
+}
@@ -0,0 +1,47 @@
+/**
+ * Read the README.md for more details.
+ * @author Julian Lau
+ */
+package dungeon;
+
+/**
+ * A description together with the contents it was rendered from.
+ * Published in one volatile write, so a reader never pairs new contents with old text.
+ */
+final class SpaceDescription {
+    /**
+     * The monsters and treasure the text describes.
+     */
+    private final SpaceContents contents;
+    /**
+     * The rendered text.
+     */
+    private final String text;
+
+    /**
+     * Pairs a description with its contents.
+     * @param theContents The contents rendered.
+     * @param theText The rendered text.
+     */
+    SpaceDescription(SpaceContents theContents, String theText) {
+        contents = theContents;
+        text = theText;
+    }
+
+    /**
+     * Checks if the text was rendered from the given contents.
+     * @param current The current contents of the space.
+     * @return True if the text is still valid.
+     */
+    boolean isOf(SpaceContents current) {
+        return contents == current;
+    }
+
+    /**
+     * Returns the rendered text.
+     * @return The text.
+     */
+    String getText() {
+        return text;
+    }
+}
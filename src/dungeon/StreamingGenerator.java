@@ -0,0 +1,137 @@
+/**
+ * Read the README.md for more details.
+ * @author Julian Lau
+ */
+package dungeon;
+
+/**
+ * Generates a dungeon one space at a time and hands each space to a listener
+ * instead of keeping it. Only the doors still waiting for a partner are held,
+ * and there are never more than the window size of them, so memory stays
+ * bounded no matter how many chambers are generated.
+ */
+public final class StreamingGenerator {
+    /**
+     * Default number of unmatched doors kept open at once.
+     */
+    public static final int DEFAULT_WINDOW = 1024;
+    /**
+     * The dice the dungeon is rolled from.
+     */
+    private Dice dice;
+    /**
+     * Maximum number of unmatched doors kept open.
+     */
+    private int window;
+    /**
+     * Chamber index owning each open door.
+     */
+    private int[] openOwners;
+    /**
+     * Number of open doors.
+     */
+    private int numOpen;
+    /**
+     * Number of doors dropped because the window was full of doors from the same chamber.
+     */
+    private int unmatched;
+    /**
+     * Number of passages created so far.
+     */
+    private int numPassages;
+
+    /**
+     * Creates a streaming generator with the default window.
+     * @param seed The seed of the dungeon.
+     */
+    public StreamingGenerator(long seed) {
+        this(new Dice(seed), DEFAULT_WINDOW);
+    }
+
+    /**
+     * Creates a streaming generator.
+     * @param theDice The dice the dungeon is rolled from.
+     * @param theWindow Maximum number of unmatched doors kept open, at least 1.
+     */
+    public StreamingGenerator(Dice theDice, int theWindow) {
+        if (theWindow < 1) {
+            throw new IllegalArgumentException("window must be at least 1");
+        }
+        dice = theDice;
+        window = theWindow;
+        openOwners = new int[theWindow];
+    }
+
+    /**
+     * Generates count chambers and the passages linking them, passing each to the listener as it is made.
+     * Every door of a new chamber is linked to a random open door of an earlier chamber, or left open
+     * for a later chamber to take.
+     * @param count Number of chambers to be made.
+     * @param listener Receives every chamber and passage.
+     * @return The number of doors left without a passage.
+     */
+    public int generate(int count, DungeonListener listener) {
+        numOpen = 0;
+        unmatched = 0;
+        numPassages = 0;
+        for (int c = 0; c < count; ++c) {
+            Chamber chamber = new Chamber(dice.split());
+            listener.chamberCreated(c, chamber);
+            for (int i = 0; i < chamber.getDoorList().size(); ++i) {
+                linkDoor(c, listener);
+            }
+        }
+        return unmatched + numOpen;
+    }
+
+    /**
+     * Links one door of a chamber to an open door of another chamber, or leaves it open.
+     * @param owner The index of the chamber owning the door.
+     * @param listener Receives the passage if one is made.
+     */
+    private void linkDoor(int owner, DungeonListener listener) {
+        if (numOpen > 0) {
+            int k = dice.nextIndex(numOpen);
+            if (openOwners[k] == owner) {
+                k = findOtherOwner(owner);
+            }
+            if (k >= 0) {
+                int other = openOwners[k];
+                openOwners[k] = openOwners[--numOpen]; // Swap remove keeps this O(1).
+                listener.passageCreated(numPassages++, createPassage(), other, owner);
+                return;
+            }
+        }
+        if (numOpen == window) { // Window is full of this chamber's own doors.
+            ++unmatched;
+        } else {
+            openOwners[numOpen++] = owner;
+        }
+    }
+
+    /**
+     * Finds an open door owned by a different chamber.
+     * @param owner The chamber to avoid.
+     * @return Index of the open door, or -1 if every open door belongs to owner.
+     */
+    private int findOtherOwner(int owner) {
+        for (int k = 0; k < numOpen; ++k) {
+            if (openOwners[k] != owner) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Creates a passage the same way Generator.createPassages does.
+     * @return The new passage.
+     */
+    private Passage createPassage() {
+        Passage p = new Passage();
+        p.createDoors(dice);
+        p.addPassageSection(new PassageSection(1, dice));
+        p.addPassageSection(new PassageSection(1, dice));
+        return p;
+    }
+}
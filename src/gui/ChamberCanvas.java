@@ -0,0 +1,126 @@
+package gui;
+
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.paint.ImagePattern;
+
+public class ChamberCanvas extends Canvas {
+    /**
+     * Floor tile repeated across the whole floor in one fill.
+     */
+    private static ImagePattern floorPattern;
+    private int length;
+    private int width;
+    private int numMonster;
+    private int numTreasure;
+    private int numDoor;
+    private int iconColumns; // Room for icons right of the floor, at least the longest row.
+
+    /**
+     * Draws the current space on a single canvas, with the same layout as ChamberView.
+     * @param spaceLen length of the space.
+     * @param spaceWid width of the space.
+     * @param monsterNum number of monster in the space.
+     * @param treasureNum number of treasure in the space.
+     * @param doorNum number of doors in the space.
+     */
+    public ChamberCanvas(int spaceLen, int spaceWid, int monsterNum, int treasureNum, int doorNum) {
+        update(spaceLen, spaceWid, monsterNum, treasureNum, doorNum);
+    }
+
+    /**
+     * Shows a different space, resizing the canvas to fit it.
+     * @param spaceLen length of the space.
+     * @param spaceWid width of the space.
+     * @param monsterNum number of monster in the space.
+     * @param treasureNum number of treasure in the space.
+     * @param doorNum number of doors in the space.
+     */
+    public void update(int spaceLen, int spaceWid, int monsterNum, int treasureNum, int doorNum) {
+        length = spaceLen;
+        width = spaceWid;
+        numMonster = monsterNum;
+        numTreasure = treasureNum;
+        numDoor = doorNum;
+        iconColumns = Math.max(numMonster, Math.max(numTreasure, numDoor));
+        resize();
+        redraw();
+    }
+
+    /**
+     * Shows new numbers of monsters and treasure in the same space, drawing or clearing only
+     * the icons that changed. The floor is left alone, so an edit costs the same in any size of space.
+     * @param monsterNum number of monster in the space.
+     * @param treasureNum number of treasure in the space.
+     */
+    public void updateContents(int monsterNum, int treasureNum) {
+        int needed = Math.max(monsterNum, Math.max(treasureNum, numDoor));
+        if (needed > iconColumns) { // Doubles the room, so a run of adds only redraws a few times.
+            numMonster = monsterNum;
+            numTreasure = treasureNum;
+            iconColumns = Math.max(needed, 2 * iconColumns);
+            resize();
+            redraw();
+            return;
+        }
+        GraphicsContext gc = getGraphicsContext2D();
+        drawRow(gc, TileImages.get("/res/monster.png"), 0, numMonster, monsterNum);
+        drawRow(gc, TileImages.get("/res/treasure.png"), 1, numTreasure, treasureNum);
+        numMonster = monsterNum;
+        numTreasure = treasureNum;
+    }
+
+    /**
+     * Sizes the canvas to the floor and the icon columns.
+     */
+    private void resize() {
+        setWidth((length + iconColumns) * TileImages.TILE_SIZE);
+        setHeight(Math.max(width, iconColumns > 0 ? 3 : 0) * TileImages.TILE_SIZE);
+    }
+
+    /**
+     * Redraws the whole space. The floor is one pattern fill, so the cost depends on
+     * the number of pixels and not on the number of tiles.
+     */
+    public void redraw() {
+        GraphicsContext gc = getGraphicsContext2D();
+        gc.clearRect(0, 0, getWidth(), getHeight());
+        // Generating floor.
+        gc.setFill(getFloorPattern());
+        gc.fillRect(0, 0, length * TileImages.TILE_SIZE, width * TileImages.TILE_SIZE);
+        // Generating Monster, Treasure and Door rows to the right of the floor.
+        drawRow(gc, TileImages.get("/res/monster.png"), 0, 0, numMonster);
+        drawRow(gc, TileImages.get("/res/treasure.png"), 1, 0, numTreasure);
+        drawRow(gc, TileImages.get("/res/door.png"), 2, 0, numDoor);
+    }
+
+    /**
+     * Changes a row of icons to the right of the floor from one length to another.
+     * The icons all look the same, so only the tiles past the shorter length are touched.
+     * @param gc The canvas graphics.
+     * @param image The icon.
+     * @param row The row the icons are drawn in.
+     * @param from Number of icons drawn now.
+     * @param to Number of icons wanted.
+     */
+    private void drawRow(GraphicsContext gc, Image image, int row, int from, int to) {
+        for (int i = to; i < from; ++i) {
+            gc.clearRect((length + i) * TileImages.TILE_SIZE, row * TileImages.TILE_SIZE, TileImages.TILE_SIZE, TileImages.TILE_SIZE);
+        }
+        for (int i = from; i < to; ++i) {
+            gc.drawImage(image, (length + i) * TileImages.TILE_SIZE, row * TileImages.TILE_SIZE);
+        }
+    }
+
+    /**
+     * Returns the floor pattern, creating it the first time.
+     * @return The floor pattern.
+     */
+    private static ImagePattern getFloorPattern() {
+        if (floorPattern == null) {
+            floorPattern = new ImagePattern(TileImages.get("/res/floor.png"), 0, 0, TileImages.TILE_SIZE, TileImages.TILE_SIZE, false);
+        }
+        return floorPattern;
+    }
+}
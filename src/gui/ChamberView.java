@@ -2,7 +2,6 @@ package gui;
 
 import javafx.scene.Node;
 import javafx.scene.control.Label;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.GridPane;
 
@@ -104,11 +103,10 @@ public class ChamberView extends GridPane {
      * @return the label containing the image.
      */
     public Node imageFactory(String newImage) {
-        Image image = new Image(getClass().getResourceAsStream(newImage));
         Label label = new Label();
-        ImageView imageView = new ImageView(image);
-        imageView.setFitWidth(35);
-        imageView.setFitHeight(35);
+        ImageView imageView = new ImageView(TileImages.get(newImage)); // Decoded once and shared.
+        imageView.setFitWidth(TileImages.TILE_SIZE);
+        imageView.setFitHeight(TileImages.TILE_SIZE);
         label.setGraphic(imageView);
         return label;
     }
@@ -1,15 +1,31 @@
 package gui;
 
-import dnd.die.D10;
 import dnd.models.Monster;
 import dnd.models.Treasure;
+import dungeon.Dice;
+import dungeon.DungeonFile;
+import dungeon.DungeonGraph;
+import dungeon.DungeonHistory;
+import dungeon.DungeonPopulator;
+import dungeon.DungeonState;
 import dungeon.Generator;
+import dungeon.PopulationRule;
+import java.io.File;
+import java.io.IOException;
 
 public class Controller {
     /**
      * The class that contains the level generation algorithm.
      */
     private Generator generator;
+    /**
+     * Every version of the monsters and treasure, for undo and redo.
+     */
+    private DungeonHistory history;
+    /**
+     * Index of the passage links, built on first use and dropped when the dungeon is replaced.
+     */
+    private DungeonGraph graph;
 
     /**
      * Generates the layout from the generator.
@@ -20,6 +36,108 @@ public class Controller {
         generator.setAvailableChambers();
         generator.assignChambers();
         generator.createPassages();
+        history = new DungeonHistory(DungeonState.of(generator));
+    }
+
+    /**
+     * Uses a dungeon that was already generated.
+     * @param theGenerator The generated dungeon.
+     */
+    public Controller(Generator theGenerator) {
+        setGenerator(theGenerator);
+    }
+
+    /**
+     * Replaces the dungeon, e.g. when a background generation finishes.
+     * @param theGenerator The generated dungeon.
+     */
+    public void setGenerator(Generator theGenerator) {
+        generator = theGenerator;
+        history = new DungeonHistory(DungeonState.of(generator));
+        graph = null;
+    }
+
+    //====================================================
+    // Saving and loading.
+    //====================================================
+
+    /**
+     * Saves the whole dungeon to a file.
+     * @param file The file saved to.
+     * @throws IOException If the file cannot be written.
+     */
+    public void save(File file) throws IOException {
+        DungeonFile.save(generator, file.toPath());
+    }
+
+    /**
+     * Replaces the dungeon with one loaded from a file.
+     * @param file The file loaded from.
+     * @throws IOException If the file cannot be read or is not a dungeon file.
+     */
+    public void load(File file) throws IOException {
+        generator = DungeonFile.load(file.toPath());
+        history = new DungeonHistory(DungeonState.of(generator));
+        graph = null;
+    }
+
+    //====================================================
+    // Undo and redo.
+    //====================================================
+
+    /**
+     * Returns the current version of the monsters and treasure. It never changes,
+     * so a background reader can keep using it while edits go on.
+     * @return The current state.
+     */
+    public DungeonState getState() {
+        return history.getCurrent();
+    }
+
+    /**
+     * Makes an edited state current and updates the spaces that changed.
+     * @param next The edited state.
+     */
+    private void edit(DungeonState next) {
+        DungeonState previous = history.getCurrent();
+        history.push(next);
+        next.applyTo(generator, previous);
+    }
+
+    /**
+     * Checks if there is an edit to undo.
+     * @return True if undo does something.
+     */
+    public boolean canUndo() {
+        return history.canUndo();
+    }
+
+    /**
+     * Checks if there is an edit to redo.
+     * @return True if redo does something.
+     */
+    public boolean canRedo() {
+        return history.canRedo();
+    }
+
+    /**
+     * Undoes the last edit, if there is one.
+     */
+    public void undo() {
+        if (history.canUndo()) {
+            DungeonState previous = history.getCurrent();
+            history.undo().applyTo(generator, previous);
+        }
+    }
+
+    /**
+     * Redoes the last undone edit, if there is one.
+     */
+    public void redo() {
+        if (history.canRedo()) {
+            DungeonState previous = history.getCurrent();
+            history.redo().applyTo(generator, previous);
+        }
     }
 
     //====================================================
@@ -74,6 +192,20 @@ public class Controller {
         return generator.getChamberList().get(chamberNum).getDoorList().get(doorNum).getDescription();
     }
 
+    /**
+     * Gets the description of the passage door. The first door is the chamber door the passage leads from.
+     * @param passageNum Passage number.
+     * @param doorNum Door number.
+     * @return String of the door description.
+     */
+    public String getPassageDoorDescription(int passageNum, int doorNum) {
+        int doorId = generator.getPassageDoorId(passageNum);
+        if (doorNum == 0 && doorId >= 0) {
+            return generator.getDoor(doorId).getDescription();
+        }
+        return generator.getPassageList().get(passageNum).getDoors().get(doorNum).getDescription();
+    }
+
     /**
      * Gets the description of the chamber.
      * @param chamberNum The chamber number.
@@ -93,17 +225,56 @@ public class Controller {
     }
 
     /**
-     * Gets the description of the passage links.
+     * Gets the description of the passage links, the two chambers recorded when the passage was made.
+     * @param passageNum The passage number.
      * @return String of the passage links.
      */
-    public String getPassageLinks() {
-        D10 d10 = new D10();
-        int link1 = (d10.roll() % 5) + 1;
-        int link2 = (d10.roll() % 5) + 1;
-        while (link2 == link1) {
-            link2 = (d10.roll() % 5) + 1;
+    public String getPassageLinks(int passageNum) {
+        int start = generator.getPassageStart(passageNum);
+        if (start < 0) {
+            return "The passage is not linked to any chamber.";
         }
-        return "The passage is linked to Chamber #" + link1 + " and Chamber #" + link2;
+        return "The passage is linked to Chamber #" + (start + 1) + " and Chamber #" + (generator.getPassageEnd(passageNum) + 1);
+    }
+
+    /**
+     * Describes how much of the dungeon can be reached from a chamber.
+     * @param chamberNum The chamber number.
+     * @return String of the reachable space count.
+     */
+    public String getChamberReachability(int chamberNum) {
+        return describeReachability(chamberNum);
+    }
+
+    /**
+     * Describes how much of the dungeon can be reached from a passage.
+     * @param passageNum The passage number.
+     * @return String of the reachable space count.
+     */
+    public String getPassageReachability(int passageNum) {
+        return describeReachability(getGraph().getPassageSpace(passageNum));
+    }
+
+    /**
+     * Describes how many spaces share a space's connected component.
+     * @param space The space id, chambers first then passages.
+     * @return String of the reachable space count.
+     */
+    private String describeReachability(int space) {
+        DungeonGraph theGraph = getGraph();
+        int others = theGraph.getNumReachable(space) - 1;
+        return others + " of the other " + (theGraph.getNumSpaces() - 1) + " spaces can be reached from here.";
+    }
+
+    /**
+     * Returns the index of the passage links, building it the first time.
+     * @return The graph.
+     */
+    private DungeonGraph getGraph() {
+        if (graph == null) {
+            graph = new DungeonGraph(generator);
+        }
+        return graph;
     }
 
     //====================================================
@@ -118,7 +289,8 @@ public class Controller {
     public void addChamberMonster(int chamberNum, int roll) {
         Monster m = new Monster();
         m.setType(roll);
-        generator.getChamberList().get(chamberNum).addMonster(m);
+        DungeonState state = history.getCurrent();
+        edit(state.withChamber(chamberNum, state.getChamber(chamberNum).withMonster(m)));
     }
 
     /**
@@ -129,7 +301,8 @@ public class Controller {
     public void addPassageMonster(int passageNum, int roll) {
         Monster m = new Monster();
         m.setType(roll);
-        generator.getPassageList().get(passageNum).addMonster(m);
+        DungeonState state = history.getCurrent();
+        edit(state.withPassage(passageNum, state.getPassage(passageNum).withMonster(m)));
     }
 
     //====================================================
@@ -145,7 +318,8 @@ public class Controller {
         Treasure t = new Treasure();
         t.chooseTreasure(roll);
         t.setContainer((roll % 20) + 1);
-        generator.getChamberList().get(chamberNum).addTreasure(t);
+        DungeonState state = history.getCurrent();
+        edit(state.withChamber(chamberNum, state.getChamber(chamberNum).withTreasure(t)));
     }
 
     /**
@@ -156,7 +330,20 @@ public class Controller {
     public void addPassageTreasure(int passageNum, int roll) {
         Treasure t = new Treasure();
         t.chooseTreasure(roll);
-        generator.getPassageList().get(passageNum).addTreasure(t);
+        DungeonState state = history.getCurrent();
+        edit(state.withPassage(passageNum, state.getPassage(passageNum).withTreasure(t)));
+    }
+
+    //====================================================
+    // Bulk population.
+    //====================================================
+
+    /**
+     * Adds monsters and treasure to every chamber and passage as one edit.
+     * @param rule How many monsters and treasures each space gets.
+     */
+    public void populate(PopulationRule rule) {
+        edit(DungeonPopulator.populate(history.getCurrent(), generator, rule, new Dice()));
     }
 
     //====================================================
@@ -192,7 +379,18 @@ public class Controller {
      * @param monsterNum Monster number.
      */
     public void removeChamberMonster(int chamberNum, int monsterNum) {
-        generator.getChamberList().get(chamberNum).removeMonster(monsterNum);
+        DungeonState state = history.getCurrent();
+        edit(state.withChamber(chamberNum, state.getChamber(chamberNum).withoutMonster(monsterNum)));
+    }
+
+    /**
+     * Removes several monsters from the chamber as one edit.
+     * @param chamberNum Chamber number.
+     * @param monsterNums Monster numbers, in any order.
+     */
+    public void removeChamberMonster(int chamberNum, int[] monsterNums) {
+        DungeonState state = history.getCurrent();
+        edit(state.withChamber(chamberNum, state.getChamber(chamberNum).withoutMonster(monsterNums)));
     }
 
     /**
@@ -224,7 +422,18 @@ public class Controller {
      * @param monsterNum Monster number.
      */
     public void removePassageMonster(int passageNum, int monsterNum) {
-        generator.getPassageList().get(passageNum).removeMonster(monsterNum);
+        DungeonState state = history.getCurrent();
+        edit(state.withPassage(passageNum, state.getPassage(passageNum).withoutMonster(monsterNum)));
+    }
+
+    /**
+     * Removes several monsters from the passage as one edit.
+     * @param passageNum Passage number.
+     * @param monsterNums Monster numbers, in any order.
+     */
+    public void removePassageMonster(int passageNum, int[] monsterNums) {
+        DungeonState state = history.getCurrent();
+        edit(state.withPassage(passageNum, state.getPassage(passageNum).withoutMonster(monsterNums)));
     }
 
     //====================================================
@@ -260,7 +469,18 @@ public class Controller {
      * @param treasureNum Treasure number.
      */
     public void removeChamberTreasure(int chamberNum, int treasureNum) {
-        generator.getChamberList().get(chamberNum).removeTreasure(treasureNum);
+        DungeonState state = history.getCurrent();
+        edit(state.withChamber(chamberNum, state.getChamber(chamberNum).withoutTreasure(treasureNum)));
+    }
+
+    /**
+     * Removes several treasures from the chamber as one edit.
+     * @param chamberNum Chamber number.
+     * @param treasureNums Treasure numbers, in any order.
+     */
+    public void removeChamberTreasure(int chamberNum, int[] treasureNums) {
+        DungeonState state = history.getCurrent();
+        edit(state.withChamber(chamberNum, state.getChamber(chamberNum).withoutTreasure(treasureNums)));
     }
 
     /**
@@ -292,7 +512,18 @@ public class Controller {
      * @param treasureNum Treasure number.
      */
     public void removePassageTreasure(int passageNum, int treasureNum) {
-        generator.getPassageList().get(passageNum).removeTreasure(treasureNum);
+        DungeonState state = history.getCurrent();
+        edit(state.withPassage(passageNum, state.getPassage(passageNum).withoutTreasure(treasureNum)));
+    }
+
+    /**
+     * Removes several treasures from the passage as one edit.
+     * @param passageNum Passage number.
+     * @param treasureNums Treasure numbers, in any order.
+     */
+    public void removePassageTreasure(int passageNum, int[] treasureNums) {
+        DungeonState state = history.getCurrent();
+        edit(state.withPassage(passageNum, state.getPassage(passageNum).withoutTreasure(treasureNums)));
     }
 
     //====================================================
@@ -0,0 +1,225 @@
+package gui;
+
+import java.util.function.IntConsumer;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.ImagePattern;
+
+public class DungeonMapView extends Pane {
+    /**
+     * Side of the square cell each space is laid out in, in tiles. Big enough for the largest chamber.
+     */
+    private static final int CELL_TILES = 10;
+    /**
+     * Smallest zoom allowed.
+     */
+    private static final double MIN_ZOOM = 0.05;
+    /**
+     * Largest zoom allowed.
+     */
+    private static final double MAX_ZOOM = 4;
+    /**
+     * Zoom below which space names are not drawn.
+     */
+    private static final double LABEL_ZOOM = 0.5;
+    /**
+     * Mouse movement, in pixels, after which a press becomes a drag instead of a click.
+     */
+    private static final double DRAG_THRESHOLD = 3;
+    private Canvas canvas; // Sized to the viewport, never to the whole dungeon.
+    private int numChambers;
+    private int numSpaces;
+    private int columns;
+    private int rows;
+    private int[] spaceLength; // In tiles, chambers first then passages.
+    private int[] spaceWidth;
+    private double offsetX; // Top left of the viewport, in pixels at the current zoom.
+    private double offsetY;
+    private double zoom = 1;
+    private double pressX;
+    private double pressY;
+    private double lastX;
+    private double lastY;
+    private boolean dragging;
+    private IntConsumer onSpaceSelected;
+
+    /**
+     * Creates a map of every space in the dungeon.
+     * @param controller The controller of the dungeon shown.
+     */
+    public DungeonMapView(Controller controller) {
+        canvas = new Canvas();
+        getChildren().add(canvas);
+        setPrefSize(800, 600);
+        load(controller);
+        setOnScroll(this::scrolled);
+        setOnMousePressed(this::pressed);
+        setOnMouseDragged(this::dragged);
+        setOnMouseReleased(this::released);
+    }
+
+    /**
+     * Lays out the spaces of a dungeon in a grid of cells, one cell per space.
+     * @param controller The controller of the dungeon shown.
+     */
+    public void load(Controller controller) {
+        numChambers = controller.getNumChambers();
+        numSpaces = numChambers + controller.getNumPassages();
+        spaceLength = new int[numSpaces];
+        spaceWidth = new int[numSpaces];
+        for (int i = 0; i < numChambers; ++i) {
+            spaceLength[i] = controller.getChamberLength(i);
+            spaceWidth[i] = controller.getChamberWidth(i);
+        }
+        for (int i = numChambers; i < numSpaces; ++i) { // Passages are drawn 6 by 2, like in the space view.
+            spaceLength[i] = 6;
+            spaceWidth[i] = 2;
+        }
+        columns = Math.max(1, (int) Math.ceil(Math.sqrt(numSpaces)));
+        rows = (numSpaces + columns - 1) / columns;
+        offsetX = 0;
+        offsetY = 0;
+        redraw();
+    }
+
+    /**
+     * Sets what happens when a space is clicked on the map.
+     * @param listener Receives the space index, chambers first then passages.
+     */
+    public void setOnSpaceSelected(IntConsumer listener) {
+        onSpaceSelected = listener;
+    }
+
+    @Override
+    protected void layoutChildren() {
+        canvas.setWidth(getWidth());
+        canvas.setHeight(getHeight());
+        redraw();
+    }
+
+    /**
+     * Draws only the cells that intersect the viewport, so the cost depends on the window size and not on the dungeon size.
+     */
+    private void redraw() {
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        double viewWidth = canvas.getWidth();
+        double viewHeight = canvas.getHeight();
+        gc.setFill(Color.BLACK);
+        gc.fillRect(0, 0, viewWidth, viewHeight);
+        if (numSpaces == 0) {
+            return;
+        }
+        double tile = TileImages.TILE_SIZE * zoom;
+        double cell = CELL_TILES * tile;
+        int firstCol = Math.max(0, (int) Math.floor(offsetX / cell));
+        int lastCol = Math.min(columns - 1, (int) Math.floor((offsetX + viewWidth) / cell));
+        int firstRow = Math.max(0, (int) Math.floor(offsetY / cell));
+        int lastRow = Math.min(rows - 1, (int) Math.floor((offsetY + viewHeight) / cell));
+
+        // One pattern per frame, anchored to the map so tiles stay put while panning.
+        ImagePattern floor = new ImagePattern(TileImages.get("/res/floor.png"), -offsetX, -offsetY, tile, tile, false);
+        gc.setLineWidth(1);
+        for (int r = firstRow; r <= lastRow; ++r) {
+            for (int c = firstCol; c <= lastCol; ++c) {
+                int i = r * columns + c;
+                if (i >= numSpaces) {
+                    break;
+                }
+                double x = c * cell - offsetX;
+                double y = r * cell - offsetY;
+                gc.setFill(floor);
+                gc.fillRect(x, y, spaceLength[i] * tile, spaceWidth[i] * tile);
+                gc.setStroke(i < numChambers ? Color.GOLD : Color.LIGHTBLUE);
+                gc.strokeRect(x, y, spaceLength[i] * tile, spaceWidth[i] * tile);
+                if (zoom >= LABEL_ZOOM) {
+                    gc.setFill(Color.WHITE);
+                    gc.fillText(spaceName(i), x + 2, y - 2 + (spaceWidth[i] + 1) * tile);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the name of a space as shown in the space list.
+     * @param i The space index.
+     * @return The name.
+     */
+    private String spaceName(int i) {
+        if (i < numChambers) {
+            return "Chamber #" + (i + 1);
+        }
+        return "Passage #" + (i - numChambers + 1);
+    }
+
+    /**
+     * Pans with the scroll wheel, or zooms around the pointer while control is held.
+     * @param event The scroll event.
+     */
+    private void scrolled(ScrollEvent event) {
+        if (event.isControlDown()) {
+            double newZoom = Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, zoom * (event.getDeltaY() > 0 ? 1.25 : 0.8)));
+            offsetX = (offsetX + event.getX()) * newZoom / zoom - event.getX();
+            offsetY = (offsetY + event.getY()) * newZoom / zoom - event.getY();
+            zoom = newZoom;
+        } else {
+            offsetX -= event.getDeltaX();
+            offsetY -= event.getDeltaY();
+        }
+        redraw();
+        event.consume();
+    }
+
+    /**
+     * Starts a drag or click.
+     * @param event The mouse event.
+     */
+    private void pressed(MouseEvent event) {
+        pressX = event.getX();
+        pressY = event.getY();
+        lastX = pressX;
+        lastY = pressY;
+        dragging = false;
+    }
+
+    /**
+     * Pans the map with the mouse.
+     * @param event The mouse event.
+     */
+    private void dragged(MouseEvent event) {
+        if (Math.abs(event.getX() - pressX) > DRAG_THRESHOLD || Math.abs(event.getY() - pressY) > DRAG_THRESHOLD) {
+            dragging = true;
+        }
+        offsetX -= event.getX() - lastX;
+        offsetY -= event.getY() - lastY;
+        lastX = event.getX();
+        lastY = event.getY();
+        redraw();
+    }
+
+    /**
+     * Selects the space under the pointer if the mouse was clicked rather than dragged.
+     * @param event The mouse event.
+     */
+    private void released(MouseEvent event) {
+        if (dragging || onSpaceSelected == null) {
+            return;
+        }
+        double tile = TileImages.TILE_SIZE * zoom;
+        double cell = CELL_TILES * tile;
+        double worldX = offsetX + event.getX();
+        double worldY = offsetY + event.getY();
+        int c = (int) Math.floor(worldX / cell);
+        int r = (int) Math.floor(worldY / cell);
+        int i = r * columns + c;
+        if (c < 0 || c >= columns || r < 0 || i >= numSpaces) {
+            return;
+        }
+        if (worldX - c * cell < spaceLength[i] * tile && worldY - r * cell < spaceWidth[i] * tile) {
+            onSpaceSelected.accept(i);
+        }
+    }
+}
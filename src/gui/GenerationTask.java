@@ -0,0 +1,70 @@
+package gui;
+
+import dungeon.Generator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import javafx.application.Platform;
+import javafx.concurrent.Task;
+
+public class GenerationTask extends Task<Generator> {
+    /**
+     * Chambers created between progress updates.
+     */
+    private static final int BATCH = 256;
+    private int numChambers;
+    private Consumer<List<String>> onChambersReady;
+
+    /**
+     * Generates a dungeon off the JavaFX application thread.
+     * @param count Number of chambers to create.
+     * @param chambersReady Called on the JavaFX thread with the descriptions of each new batch of chambers,
+     *     taken before their doors are linked.
+     */
+    public GenerationTask(int count, Consumer<List<String>> chambersReady) {
+        numChambers = count;
+        onChambersReady = chambersReady;
+    }
+
+    /**
+     * Runs the generator phases, checking for cancellation between them.
+     * @return The generated dungeon, or null if cancelled.
+     */
+    @Override
+    protected Generator call() {
+        Generator generator = new Generator();
+        long total = numChambers + 3L; // One step per chamber, plus the three linking phases.
+        int done = 0;
+        updateMessage("Creating chambers...");
+        while (done < numChambers) {
+            if (isCancelled()) {
+                return null;
+            }
+            int batch = Math.min(BATCH, numChambers - done);
+            generator.createChambers(batch);
+            List<String> ready = new ArrayList<String>(batch); // Read here, where the generator is not shared.
+            for (int i = done; i < done + batch; ++i) {
+                ready.add(generator.getChamberList().get(i).getDescription());
+            }
+            done += batch;
+            updateProgress(done, total);
+            Platform.runLater(() -> onChambersReady.accept(ready));
+        }
+        updateMessage("Linking doors...");
+        generator.setAvailableChambers();
+        updateProgress(numChambers + 1L, total);
+        if (isCancelled()) {
+            return null;
+        }
+        generator.assignChambers();
+        updateProgress(numChambers + 2L, total);
+        if (isCancelled()) {
+            return null;
+        }
+        updateMessage("Creating passages...");
+        generator.createPassages();
+        updateProgress(total, total);
+        updateMessage("Done.");
+        return generator;
+    }
+}
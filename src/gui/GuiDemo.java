@@ -1,21 +1,33 @@
 package gui;
 
+import dungeon.GenerationMetrics;
+import dungeon.Generator;
+import dungeon.PopulationRule;
 import javafx.application.Application;
 import javafx.event.ActionEvent;
 import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.control.ChoiceBox;
+import javafx.scene.control.ListCell;
 import javafx.scene.control.ListView;
+import javafx.scene.control.SelectionMode;
+import javafx.scene.control.SeparatorMenuItem;
+import javafx.scene.control.TextField;
 import javafx.scene.image.ImageView;
+import javafx.scene.input.KeyCombination;
 import javafx.scene.layout.BorderPane;
-import javafx.scene.layout.GridPane;
 import javafx.scene.layout.VBox;
 import javafx.scene.text.Text;
 import javafx.stage.FileChooser;
 import javafx.stage.Popup;
 import javafx.stage.Stage;
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntFunction;
 
 public class GuiDemo<toReturn> extends Application {
     /* Instance Variables */
@@ -26,28 +38,45 @@ public class GuiDemo<toReturn> extends Application {
     private Popup editAddTreasurePopup;
     private Popup editRemoveMonsterPopup;
     private Popup editRemoveTreasurePopup;
-    private ListView listView;
+    private ListView<Integer> removeMonsterList; // Monster numbers of the current space, names drawn only for visible rows
+    private ListView<Integer> removeTreasureList; // Treasure numbers of the current space
+    private ListView<SpaceId> listView; // Spaces matching the filter
+    private SpaceId[] spaces; // Every space of the controller's dungeon, chambers first then passages
+    private SpaceId[] pendingSpaces; // Chambers of the dungeon being generated, null when idle
+    private List<String> pendingDescriptions; // Descriptions of those chambers from before their doors were linked
+    private TextField filterField; // Type-ahead filter of the space list
+    private String lastFilter = "";
     private Stage primaryStage;  //The stage that is passed in on initialization
+    private Stage mapStage; // Window showing the whole dungeon map
+    private DungeonMapView mapView;
     private String description; // Description of the space + door
     private Text text; // Text that displays space description
     private ChoiceBox choiceBox; // Choice of doors for that space
-    private GridPane imageGridPane;
+    private ChamberCanvas chamberCanvas; // Image of the current space.
     private BorderPane rootBorderPane;
     private int currentSpace = 0;
     private int currentDoor = 0;
     private boolean isChamber; // True if the current space is a chamber, false if its a passage.
+    private static final int DEFAULT_CHAMBERS = 5; // Chambers generated unless --chambers=N is given.
+    private GenerationTask generationTask; // Running background generation, null when idle
+    private ProgressBar progressBar;
+    private Label progressLabel;
+    private Button cancelGeneration;
 
     /* A call to start replaces a call to the constructor for a JavaFX GUI */
     @Override
     public void start(Stage assignedStage) {
+        GenerationMetrics.register(); // Watch generation cost with jconsole or any JMX client.
         /*Initializing instance variables */
-        theController = new Controller();
+        theController = new Controller(new Generator()); // Filled in by the background generation.
         primaryStage = assignedStage;
         /*Border Panes have  top, left, right, center and bottom sections */
         root = setUpRoot();
         editPopup = createEditPopup(600, 300);
         editAddMonsterPopup = createAddMonsterPopup(800, 300);
         editAddTreasurePopup = createAddTreasurePopup(800, 300);
+        editRemoveMonsterPopup = createRemoveMonsterPopup(450, 300);
+        editRemoveTreasurePopup = createRemoveTreasurePopup(450, 300);
         Scene scene = new Scene(root, 700, 700);
         primaryStage.setTitle("Dungeon Generator Gui");
         doorListViewListener();
@@ -56,6 +85,128 @@ public class GuiDemo<toReturn> extends Application {
         // Displaying scene
         primaryStage.setScene(scene);
         primaryStage.show();
+        startGeneration(getChamberCount());
+    }
+
+    /**
+     * Returns the number of chambers to generate, from the --chambers=N argument.
+     * @return The number of chambers, or the default if the argument is missing, not a number or below 1.
+     */
+    private int getChamberCount() {
+        String value = getParameters().getNamed().get("chambers");
+        if (value != null) {
+            try {
+                int count = Integer.parseInt(value);
+                if (count >= 1) {
+                    return count;
+                }
+            } catch (NumberFormatException ex) { // Falls back to the default.
+                return DEFAULT_CHAMBERS;
+            }
+        }
+        return DEFAULT_CHAMBERS;
+    }
+
+    /**
+     * Generates a new dungeon on a background thread. Chambers appear in the list as they are
+     * created and can be looked at, but not edited, until the whole dungeon is linked. The controller
+     * and the map keep the current dungeon until then, and the list goes back to it if the generation stops early.
+     * @param count Number of chambers to generate.
+     */
+    private void startGeneration(int count) {
+        if (generationTask != null) {
+            generationTask.cancel();
+        }
+        GenerationTask[] task = new GenerationTask[1]; // Lambda notation needs this.
+        task[0] = new GenerationTask(count, ready -> {
+            if (generationTask == task[0] && !task[0].isCancelled()) { // Ignores updates from a cancelled generation.
+                showGeneratedChambers(ready);
+            }
+        });
+        generationTask = task[0];
+        pendingSpaces = new SpaceId[0];
+        pendingDescriptions = new ArrayList<String>();
+        hideEditPopups(); // They edit the current dungeon, which leaves the list.
+        lastFilter = "";
+        filterField.clear();
+        listView.getItems().clear();
+        progressBar.progressProperty().bind(task[0].progressProperty());
+        progressLabel.textProperty().bind(task[0].messageProperty());
+        progressBar.setVisible(true);
+        cancelGeneration.setDisable(false);
+
+        task[0].setOnSucceeded(event -> {
+            if (finishGeneration(task[0], "Generated " + count + " chambers.")) {
+                theController.setGenerator(task[0].getValue());
+                fillSpaceList(); // Swaps the finished dungeon in.
+                if (mapView != null) {
+                    mapView.load(theController);
+                }
+            }
+        });
+        task[0].setOnCancelled(event -> {
+            if (finishGeneration(task[0], "Generation cancelled.")) {
+                fillSpaceList(); // Back to the dungeon the controller still holds.
+            }
+        });
+        task[0].setOnFailed(event -> {
+            if (finishGeneration(task[0], "Generation failed: " + task[0].getException())) {
+                fillSpaceList();
+            }
+        });
+        Thread thread = new Thread(task[0], "dungeon-generator");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Adds newly created chambers to the space list while generation is running.
+     * @param descriptions Descriptions of the chambers created since the last call.
+     */
+    private void showGeneratedChambers(List<String> descriptions) {
+        int first = pendingSpaces.length;
+        pendingSpaces = Arrays.copyOf(pendingSpaces, first + descriptions.size());
+        pendingDescriptions.addAll(descriptions);
+        ArrayList<SpaceId> added = new ArrayList<SpaceId>();
+        for (int i = first; i < pendingSpaces.length; ++i) {
+            pendingSpaces[i] = new SpaceId(true, i);
+            if (pendingSpaces[i].matches(lastFilter)) {
+                added.add(pendingSpaces[i]);
+            }
+        }
+        listView.getItems().addAll(added);
+    }
+
+    /**
+     * Shows what is known of a chamber that is still being generated.
+     * @param chamberNumber The chamber number in the new dungeon.
+     */
+    private void showPendingChamber(int chamberNumber) {
+        choiceBox.getItems().clear();
+        description = "Chamber Description (still generating)\n==========================\n"
+                + pendingDescriptions.get(chamberNumber);
+        text.setText(description);
+    }
+
+    /**
+     * Resets the progress controls once a generation stops.
+     * @param task The generation that stopped.
+     * @param message The message shown.
+     * @return False if a newer generation owns the controls and the result must be ignored.
+     */
+    private boolean finishGeneration(GenerationTask task, String message) {
+        if (generationTask != task) { // A newer generation owns the controls.
+            return false;
+        }
+        generationTask = null;
+        progressBar.progressProperty().unbind();
+        progressLabel.textProperty().unbind();
+        progressBar.setVisible(false);
+        progressLabel.setText(message);
+        cancelGeneration.setDisable(true);
+        pendingSpaces = null;
+        pendingDescriptions = null;
+        return true;
     }
 
     private BorderPane setUpRoot() {
@@ -75,8 +226,8 @@ public class GuiDemo<toReturn> extends Application {
         rootBorderPane.setCenter(node);
 
         // Bottom
-        imageGridPane = new ChamberView(0, 0, 0, 0, 0);
-        rootBorderPane.setBottom(imageGridPane);
+        chamberCanvas = new ChamberCanvas(0, 0, 0, 0, 0);
+        rootBorderPane.setBottom(chamberCanvas);
 
         // Right
         node = setRightChoiceBox();
@@ -90,47 +241,140 @@ public class GuiDemo<toReturn> extends Application {
         FileChooser fileChooser = new FileChooser();
 
         // Creating the menu options.
+        MenuItem newDungeon = new MenuItem("New");
+        newDungeon.setOnAction(event -> startGeneration(getChamberCount()));
+        menu.getItems().add(newDungeon);
+
         MenuItem save = new MenuItem("Save");
         save.setOnAction(event -> {
             File saveFile = fileChooser.showSaveDialog(primaryStage);
+            if (saveFile != null) {
+                try {
+                    theController.save(saveFile);
+                } catch (IOException ex) {
+                    text.setText("Could not save the dungeon.\n" + ex.getMessage());
+                }
+            }
         });
         menu.getItems().add(save);
 
         MenuItem load = new MenuItem("Load");
         load.setOnAction(event -> {
             File loadFile = fileChooser.showOpenDialog(primaryStage);
+            if (loadFile != null) {
+                if (generationTask != null) {
+                    generationTask.cancel();
+                }
+                try {
+                    theController.load(loadFile);
+                    fillSpaceList();
+                    if (mapView != null) {
+                        mapView.load(theController);
+                    }
+                } catch (IOException ex) {
+                    text.setText("Could not load the dungeon.\n" + ex.getMessage());
+                }
+            }
         });
         menu.getItems().add(load);
 
+        // Creating the edit menu.
+        Menu edit = new Menu("Edit");
+        MenuItem undo = new MenuItem("Undo");
+        undo.setAccelerator(KeyCombination.keyCombination("Shortcut+Z"));
+        undo.setOnAction(event -> {
+            if (generationTask != null) { // The selected space belongs to the new dungeon.
+                return;
+            }
+            theController.undo();
+            refreshSpace();
+        });
+        MenuItem redo = new MenuItem("Redo");
+        redo.setAccelerator(KeyCombination.keyCombination("Shortcut+Y"));
+        redo.setOnAction(event -> {
+            if (generationTask != null) {
+                return;
+            }
+            theController.redo();
+            refreshSpace();
+        });
+        MenuItem stock = new MenuItem("Stock Every Space");
+        stock.setOnAction(event -> {
+            if (generationTask != null) {
+                return;
+            }
+            theController.populate(createStockingRule());
+            refreshSpace(); // Once for the whole dungeon.
+        });
+        edit.setOnShowing(event -> { // Only offers what the history allows.
+            undo.setDisable(generationTask != null || !theController.canUndo());
+            redo.setDisable(generationTask != null || !theController.canRedo());
+            stock.setDisable(generationTask != null);
+        });
+        edit.getItems().addAll(undo, redo, new SeparatorMenuItem(), stock);
+
+        // Creating the view menu.
+        Menu view = new Menu("View");
+        MenuItem map = new MenuItem("Dungeon Map");
+        map.setOnAction(event -> showMap());
+        view.getItems().add(map);
+
         // Adding option to the menu bar.
         MenuBar menuBar = new MenuBar();
         menuBar.getMenus().add(menu);
+        menuBar.getMenus().add(edit);
+        menuBar.getMenus().add(view);
 
         return menuBar;
     }
 
+    /**
+     * Opens the window with the map of the whole dungeon. Clicking a space on the map selects it in the list.
+     */
+    private void showMap() {
+        if (mapStage == null) {
+            mapView = new DungeonMapView(theController);
+            mapView.setOnSpaceSelected(index -> {
+                if (generationTask == null) { // The list holds the new dungeon while generating.
+                    selectSpace(spaces[index]);
+                }
+            });
+            mapStage = new Stage();
+            mapStage.setTitle("Dungeon Map (drag or scroll to pan, ctrl + scroll to zoom)");
+            mapStage.setScene(new Scene(mapView, 800, 600));
+        }
+        mapStage.show();
+        mapStage.toFront();
+    }
+
     private Node setLeftPanel() {
         // Setup
         VBox vBox = createVBox();
-        listView = new ListView();
+        filterField = new TextField();
+        filterField.setPromptText("Filter spaces");
+        filterField.setPrefWidth(125);
+        filterField.textProperty().addListener((v, oldValue, newValue) -> applyFilter(newValue));
+        vBox.getChildren().add(filterField);
+        listView = new ListView<SpaceId>();
         listView.setPrefWidth(125);
-        listView.setPrefHeight(475);
-
-        // Creating list of Chambers
-        for (int i = 0; i < theController.getNumChambers(); ++i) {
-            listView.getItems().add("Chamber #" + (i + 1));
-        }
-
-        // Creating list of Passages
-        for (int i = 0; i < theController.getNumPassages(); ++i) {
-            listView.getItems().add("Passage #" + (i + 1));
-        }
+        listView.setPrefHeight(450);
+        listView.setCellFactory(list -> new ListCell<SpaceId>() {
+            @Override
+            protected void updateItem(SpaceId item, boolean empty) {
+                super.updateItem(item, empty);
+                setText(empty || item == null ? null : item.getName());
+            }
+        });
+        fillSpaceList();
         vBox.getChildren().add(listView);
 
         // Edit Buttons
         Button edit = createButton("Open Edit");
         edit.setGraphic(new ImageView("/res/edit.png"));
         edit.setOnAction((ActionEvent event) -> {
+            if (generationTask != null) { // Chambers still being generated cannot be edited.
+                return;
+            }
             if (!editPopup.isShowing()) {
                 editPopup.show(primaryStage);
             } else {
@@ -140,18 +384,81 @@ public class GuiDemo<toReturn> extends Application {
         vBox.getChildren().add(edit);
 
         Button closeEdit = createButton("Close Edit");
-        closeEdit.setOnAction((ActionEvent event) -> {
-            editPopup.hide();
-            editAddMonsterPopup.hide();
-            editAddTreasurePopup.hide();
-            editRemoveMonsterPopup.hide();
-            editRemoveTreasurePopup.hide();
-        });
+        closeEdit.setOnAction((ActionEvent event) -> hideEditPopups());
         vBox.getChildren().add(closeEdit);
 
+        // Generation progress
+        progressBar = new ProgressBar();
+        progressBar.setPrefWidth(125);
+        vBox.getChildren().add(progressBar);
+        progressLabel = new Label();
+        progressLabel.setPrefWidth(125);
+        progressLabel.setWrapText(true);
+        vBox.getChildren().add(progressLabel);
+        cancelGeneration = createButton("Cancel");
+        cancelGeneration.setDisable(true);
+        cancelGeneration.setOnAction((ActionEvent event) -> {
+            if (generationTask != null) {
+                generationTask.cancel();
+            }
+        });
+        vBox.getChildren().add(cancelGeneration);
+
         return vBox;
     }
 
+    /**
+     * Fills the space list with every chamber and passage of the current dungeon.
+     */
+    private void fillSpaceList() {
+        int numChambers = theController.getNumChambers();
+        spaces = new SpaceId[numChambers + theController.getNumPassages()];
+
+        // Creating list of Chambers
+        for (int i = 0; i < numChambers; ++i) {
+            spaces[i] = new SpaceId(true, i);
+        }
+
+        // Creating list of Passages
+        for (int i = numChambers; i < spaces.length; ++i) {
+            spaces[i] = new SpaceId(false, i - numChambers);
+        }
+        lastFilter = "";
+        filterField.clear();
+        listView.getItems().setAll(spaces);
+    }
+
+    /**
+     * Shows only the spaces whose name contains the text. When the text only grew,
+     * just the spaces still listed are checked again.
+     * @param text The filter text.
+     */
+    private void applyFilter(String text) {
+        String key = text == null ? "" : text.toLowerCase();
+        SpaceId[] all = generationTask != null ? pendingSpaces : spaces;
+        List<SpaceId> source = key.startsWith(lastFilter) ? new ArrayList<SpaceId>(listView.getItems()) : Arrays.asList(all);
+        ArrayList<SpaceId> matches = new ArrayList<SpaceId>();
+        for (SpaceId space : source) {
+            if (space.matches(key)) {
+                matches.add(space);
+            }
+        }
+        lastFilter = key;
+        listView.getItems().setAll(matches);
+    }
+
+    /**
+     * Selects a space in the list, clearing the filter if it hides the space.
+     * @param space The space selected.
+     */
+    private void selectSpace(SpaceId space) {
+        if (!space.matches(lastFilter)) {
+            filterField.clear();
+        }
+        listView.getSelectionModel().select(space);
+        listView.scrollTo(space);
+    }
+
     private Node setMiddleTextPanel() {
         VBox vbox = createVBox();
         text = new Text();
@@ -174,17 +481,20 @@ public class GuiDemo<toReturn> extends Application {
 
     private void doorListViewListener() {
         listView.getSelectionModel().selectedItemProperty().addListener((v, oldValue, newValue) -> {
-            // Checks if the space is a passage or a chamber.
-            if (listView.getSelectionModel().getSelectedItem().toString().charAt(0) == 'C') {
-                isChamber = true;
-                currentSpace = listView.getSelectionModel().getSelectedItem().toString().charAt(9) - 49;
-            } else if (listView.getSelectionModel().getSelectedItem().toString().charAt(0) == 'P') {
-                isChamber = false;
-                currentSpace = listView.getSelectionModel().getSelectedItem().toString().charAt(9) - 49;
-            } else {
-                isChamber = true;
-                System.out.println("error");
+            if (newValue == null) { // Selection cleared, e.g. after loading a dungeon.
+                editRemoveMonsterPopup.hide(); // Their items belong to the old space.
+                editRemoveTreasurePopup.hide();
+                fillRemoveList(removeMonsterList, 0);
+                fillRemoveList(removeTreasureList, 0);
+                return;
+            }
+            if (generationTask != null) { // Only a preview until the new dungeon is swapped in.
+                showPendingChamber(newValue.getIndex());
+                return;
             }
+            // Checks if the space is a passage or a chamber.
+            isChamber = newValue.isChamber();
+            currentSpace = newValue.getIndex();
 
             // Adds doors and description based on the space.
             choiceBox.getItems().clear();
@@ -201,11 +511,15 @@ public class GuiDemo<toReturn> extends Application {
             }
             text.setText(description);
             updateImage();
+            fillRemoveLists();
         });
     }
 
     private void choiceBoxListener() {
         choiceBox.getSelectionModel().selectedItemProperty().addListener((v, oldVal, newVal) -> {
+            if (newVal == null) { // Doors cleared for a new space.
+                return;
+            }
             if (choiceBox.getValue().equals("Door #1")) {
                 currentDoor = 0;
             } else if (choiceBox.getValue().equals("Door #2")) {
@@ -215,7 +529,9 @@ public class GuiDemo<toReturn> extends Application {
             } else if (choiceBox.getValue().equals("Door #4")) {
                 currentDoor = 3;
             }
-            text.setText(description + choiceBox.getValue() + ":\n" + theController.getDoorDescription(currentSpace, currentDoor));
+            String door = isChamber ? theController.getDoorDescription(currentSpace, currentDoor)
+                    : theController.getPassageDoorDescription(currentSpace, currentDoor);
+            text.setText(description + choiceBox.getValue() + ":\n" + door);
         });
     }
 
@@ -246,7 +562,6 @@ public class GuiDemo<toReturn> extends Application {
         Button editRemoveMonster = createButton("Remove Monster");
         editRemoveMonster.setOnAction((ActionEvent event) -> {
             editPopup.hide();
-            editRemoveMonsterPopup = createRemoveMonsterPopup(450, 300);
             editRemoveMonsterPopup.show(primaryStage);
         });
         vbox.getChildren().add(editRemoveMonster);
@@ -255,7 +570,6 @@ public class GuiDemo<toReturn> extends Application {
         Button editRemoveTreasure = createButton("Remove Treasure");
         editRemoveTreasure.setOnAction((ActionEvent event) -> {
             editPopup.hide();
-            editRemoveTreasurePopup = createRemoveTreasurePopup(450, 300);
             editRemoveTreasurePopup.show(primaryStage);
         });
         vbox.getChildren().add(editRemoveTreasure);
@@ -285,7 +599,7 @@ public class GuiDemo<toReturn> extends Application {
                     updateText();
                 }
                 editAddMonsterPopup.hide();
-                updateImage();
+                updateContentsImage();
             });
             vbox.getChildren().add(button);
         }
@@ -316,7 +630,7 @@ public class GuiDemo<toReturn> extends Application {
                     updateText();
                 }
                 editAddTreasurePopup.hide();
-                updateImage();
+                updateContentsImage();
             });
             vbox.getChildren().add(button);
         }
@@ -327,84 +641,127 @@ public class GuiDemo<toReturn> extends Application {
     }
 
     private Popup createRemoveMonsterPopup(int x, int y) {
-        // Creates the popup with VBox.
-        Popup popup = new Popup();
-        popup.setX(x);
-        popup.setY(y);
-        VBox vbox = createVBox();
+        removeMonsterList = createRemoveList(i -> isChamber
+                ? theController.getChamberMonsterName(currentSpace, i) : theController.getPassageMonsterName(currentSpace, i));
+        Button button = createButton("Remove Selected");
+        button.setOnAction((ActionEvent event) -> {
+            int[] selected = getSelectedNums(removeMonsterList);
+            if (selected.length == 0) {
+                return;
+            }
+            if (isChamber) { // Space is a chamber.
+                theController.removeChamberMonster(currentSpace, selected);
+            } else { // Space is a passage.
+                theController.removePassageMonster(currentSpace, selected);
+            }
+            editRemoveMonsterPopup.hide();
+            updateText();
+            updateContentsImage();
+        });
+        return createRemovePopup(x, y, removeMonsterList, button);
+    }
 
-        if (isChamber) { // Space is a chamber.
-            for (int i = 0; i < theController.getChamberNumMonsters(currentSpace); ++i) {
-                Button button = createButton(theController.getChamberMonsterName(currentSpace, i));
-                int finalI = i;
-                button.setOnAction((ActionEvent event) -> {
-                    theController.removeChamberMonster(currentSpace, finalI);
-                    vbox.getChildren().remove(button); // Removing option once selected.
-                    editRemoveMonsterPopup.hide();
-                    updateText();
-                    updateImage();
-                });
-                vbox.getChildren().add(button);
+    private Popup createRemoveTreasurePopup(int x, int y) {
+        removeTreasureList = createRemoveList(i -> isChamber
+                ? theController.getChamberTreasureName(currentSpace, i) : theController.getPassageTreasureName(currentSpace, i));
+        Button button = createButton("Remove Selected");
+        button.setOnAction((ActionEvent event) -> {
+            int[] selected = getSelectedNums(removeTreasureList);
+            if (selected.length == 0) {
+                return;
             }
-        } else { // Space is a passage.
-            for (int i = 0; i < theController.getPassageNumMonsters(currentSpace); ++i) {
-                Button button = createButton(theController.getPassageMonsterName(currentSpace, i));
-                int finalI = i;
-                button.setOnAction((ActionEvent event) -> {
-                    theController.removePassageMonster(currentSpace, finalI);
-                    vbox.getChildren().remove(button); // Removing option once selected.
-                    editRemoveMonsterPopup.hide();
-                    updateText();
-                    updateImage();
-                });
-                vbox.getChildren().add(button);
+            if (isChamber) { // Space is a chamber.
+                theController.removeChamberTreasure(currentSpace, selected);
+            } else { // Space is a passage.
+                theController.removePassageTreasure(currentSpace, selected);
             }
-        }
+            editRemoveTreasurePopup.hide();
+            updateText();
+            updateContentsImage();
+        });
+        return createRemovePopup(x, y, removeTreasureList, button);
+    }
 
-        // Returning the generated popup.
-        popup.getContent().add(vbox);
-        return popup;
+    /**
+     * Creates a multi-select list of item numbers. Only the visible rows are drawn,
+     * so a name is looked up only when its row scrolls into view.
+     * @param names Returns the name of an item number in the current space.
+     * @return The list.
+     */
+    private ListView<Integer> createRemoveList(IntFunction<String> names) {
+        ListView<Integer> list = new ListView<Integer>();
+        list.setPrefWidth(250);
+        list.setPrefHeight(300);
+        list.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+        list.setCellFactory(view -> new ListCell<Integer>() {
+            @Override
+            protected void updateItem(Integer item, boolean empty) {
+                super.updateItem(item, empty);
+                setText(empty || item == null ? null : names.apply(item));
+            }
+        });
+        return list;
     }
 
-    private Popup createRemoveTreasurePopup(int x, int y) {
-        // Creates the popup with VBox.
+    /**
+     * Creates a popup holding a remove list and its button.
+     * @param x Popup x position.
+     * @param y Popup y position.
+     * @param list The remove list.
+     * @param button The button removing the selected items.
+     * @return The popup.
+     */
+    private Popup createRemovePopup(int x, int y, ListView<Integer> list, Button button) {
         Popup popup = new Popup();
         popup.setX(x);
         popup.setY(y);
         VBox vbox = createVBox();
+        vbox.getChildren().add(list);
+        vbox.getChildren().add(button);
+        popup.getContent().add(vbox);
+        return popup;
+    }
 
-        // Removing the treasure.
+    /**
+     * Points the remove lists at the monsters and treasure of the current space.
+     */
+    private void fillRemoveLists() {
         if (isChamber) { // Space is a chamber.
-            for (int i = 0; i < theController.getChamberNumTreasure(currentSpace); ++i) {
-                Button button = createButton(theController.getChamberTreasureName(currentSpace, i));
-                int finalI = i;
-                button.setOnAction((ActionEvent event) -> {
-                    theController.removeChamberTreasure(currentSpace, finalI);
-                    vbox.getChildren().remove(button); // Removing option once selected.
-                    editRemoveTreasurePopup.hide();
-                    updateText();
-                    updateImage();
-                });
-                vbox.getChildren().add(button);
-            }
+            fillRemoveList(removeMonsterList, theController.getChamberNumMonsters(currentSpace));
+            fillRemoveList(removeTreasureList, theController.getChamberNumTreasure(currentSpace));
         } else { // Space is a passage.
-            for (int i = 0; i < theController.getPassageNumTreasure(currentSpace); ++i) {
-                Button button = createButton(theController.getPassageTreasureName(currentSpace, i));
-                int finalI = i;
-                button.setOnAction((ActionEvent event) -> {
-                    theController.removePassageTreasure(currentSpace, finalI);
-                    vbox.getChildren().remove(button); // Removing option once selected.
-                    editRemoveTreasurePopup.hide();
-                    updateText();
-                    updateImage();
-                });
-                vbox.getChildren().add(button);
-            }
+            fillRemoveList(removeMonsterList, theController.getPassageNumMonsters(currentSpace));
+            fillRemoveList(removeTreasureList, theController.getPassageNumTreasure(currentSpace));
         }
+    }
 
-        // Returning the generated popup.
-        popup.getContent().add(vbox);
-        return popup;
+    /**
+     * Fills a remove list with the item numbers 0 to count - 1 and clears its selection.
+     * @param list The remove list.
+     * @param count Number of items in the space.
+     */
+    private void fillRemoveList(ListView<Integer> list, int count) {
+        Integer[] nums = new Integer[count];
+        for (int i = 0; i < count; ++i) {
+            nums[i] = i;
+        }
+        list.getSelectionModel().clearSelection();
+        list.getItems().setAll(nums);
+        list.refresh(); // Same numbers may now name different items.
+    }
+
+    /**
+     * Returns the selected item numbers of a remove list.
+     * @param list The remove list.
+     * @return The selected numbers.
+     */
+    private int[] getSelectedNums(ListView<Integer> list) {
+        List<Integer> selected = list.getSelectionModel().getSelectedItems();
+        int[] nums = new int[selected.size()];
+        for (int i = 0; i < nums.length; ++i) {
+            nums[i] = selected.get(i);
+        }
+        return nums;
     }
 
     /**
@@ -412,7 +769,7 @@ public class GuiDemo<toReturn> extends Application {
      * @param chamberNumber The chamber number.
      */
     private void createChamberDescription(int chamberNumber) {
-        description = "Chamber Description\n==========================\n" + theController.getChamberDescription(chamberNumber) + "\n Door Description\n==========================\n";
+        description = "Chamber Description\n==========================\n" + theController.getChamberDescription(chamberNumber) + theController.getChamberReachability(chamberNumber) + "\n\n Door Description\n==========================\n";
     }
 
     /**
@@ -420,7 +777,7 @@ public class GuiDemo<toReturn> extends Application {
      * @param passageNum The passage number.
      */
     private void createPassageDescription(int passageNum) {
-        description = "Passage Description\n==========================\n" + theController.getPassageDescription(passageNum) + theController.getPassageLinks() + "\n\n Door Description\n==========================\n";
+        description = "Passage Description\n==========================\n" + theController.getPassageDescription(passageNum) + theController.getPassageLinks(passageNum) + "\n" + theController.getPassageReachability(passageNum) + "\n\n Door Description\n==========================\n";
     }
 
     /**
@@ -435,16 +792,62 @@ public class GuiDemo<toReturn> extends Application {
         text.setText(description);
     }
 
+    /**
+     * Creates the rule used by Stock Every Space: a monster and a treasure in every chamber,
+     * one more monster per 1000 square ft, and a monster in every passage.
+     * @return The rule.
+     */
+    private PopulationRule createStockingRule() {
+        PopulationRule rule = new PopulationRule();
+        rule.setChamberCounts(1, 1);
+        rule.setChamberDensities(1, 0);
+        rule.setPassageCounts(1, 0);
+        return rule;
+    }
+
+    /**
+     * Redraws the selected space after an undo, redo or stocking, which may have changed it.
+     */
+    private void refreshSpace() {
+        if (listView.getSelectionModel().getSelectedItem() != null) {
+            updateText();
+            updateContentsImage();
+        }
+    }
+
+    /**
+     * Hides the edit popup and every popup it opens.
+     */
+    private void hideEditPopups() {
+        editPopup.hide();
+        editAddMonsterPopup.hide();
+        editAddTreasurePopup.hide();
+        editRemoveMonsterPopup.hide();
+        editRemoveTreasurePopup.hide();
+    }
+
     /**
      * Updates the current displayed image of the space.
      */
     private void updateImage() {
         if (isChamber) { // Space is a chamber.
-            imageGridPane = new ChamberView(theController.getChamberLength(currentSpace), theController.getChamberWidth(currentSpace), theController.getChamberNumMonsters(currentSpace), theController.getChamberNumTreasure(currentSpace), theController.getChamberNumDoors(currentSpace));
+            chamberCanvas.update(theController.getChamberLength(currentSpace), theController.getChamberWidth(currentSpace), theController.getChamberNumMonsters(currentSpace), theController.getChamberNumTreasure(currentSpace), theController.getChamberNumDoors(currentSpace));
+        } else {
+            chamberCanvas.update(6, 2, theController.getPassageNumMonsters(currentSpace), theController.getPassageNumTreasure(currentSpace), theController.getPassageNumDoors(currentSpace));
+        }
+    }
+
+    /**
+     * Updates only the monster and treasure icons of the displayed space after an edit, keeping the floor.
+     * The remove lists are refilled to match.
+     */
+    private void updateContentsImage() {
+        fillRemoveLists();
+        if (isChamber) { // Space is a chamber.
+            chamberCanvas.updateContents(theController.getChamberNumMonsters(currentSpace), theController.getChamberNumTreasure(currentSpace));
         } else {
-            imageGridPane = new ChamberView(6, 2, theController.getPassageNumMonsters(currentSpace), theController.getPassageNumTreasure(currentSpace), theController.getPassageNumDoors(currentSpace));
+            chamberCanvas.updateContents(theController.getPassageNumMonsters(currentSpace), theController.getPassageNumTreasure(currentSpace));
         }
-        rootBorderPane.setBottom(imageGridPane);
     }
 
     /**
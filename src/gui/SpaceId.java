@@ -0,0 +1,58 @@
+package gui;
+
+public final class SpaceId {
+    private final boolean chamber;
+    private final int index;
+    private final String name;
+    private final String key; // Lower case name used by the filter.
+
+    /**
+     * Identifies a chamber or passage of the dungeon.
+     * @param isChamber True for a chamber, false for a passage.
+     * @param theIndex The chamber or passage number, starting at 0.
+     */
+    public SpaceId(boolean isChamber, int theIndex) {
+        chamber = isChamber;
+        index = theIndex;
+        name = (isChamber ? "Chamber #" : "Passage #") + (theIndex + 1);
+        key = name.toLowerCase();
+    }
+
+    /**
+     * Returns true if the space is a chamber.
+     * @return True for a chamber, false for a passage.
+     */
+    public boolean isChamber() {
+        return chamber;
+    }
+
+    /**
+     * Returns the chamber or passage number.
+     * @return The number, starting at 0.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Returns the name shown in the space list.
+     * @return The name, e.g. "Chamber #12".
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns true if the name contains the filter text.
+     * @param lowerCaseText The filter text, already in lower case.
+     * @return True if the space should be listed.
+     */
+    public boolean matches(String lowerCaseText) {
+        return key.contains(lowerCaseText);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
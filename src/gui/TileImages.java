@@ -0,0 +1,31 @@
+package gui;
+
+import java.util.concurrent.ConcurrentHashMap;
+import javafx.scene.image.Image;
+
+public final class TileImages {
+    /**
+     * Size in pixels that every tile is drawn at.
+     */
+    public static final int TILE_SIZE = 35;
+    /**
+     * Decoded tiles, keyed by resource path.
+     */
+    private static final ConcurrentHashMap<String, Image> CACHE = new ConcurrentHashMap<String, Image>();
+
+    /**
+     * Utility class, not created.
+     */
+    private TileImages() {
+    }
+
+    /**
+     * Returns the tile image for a resource, decoding and scaling it only the first time it is asked for.
+     * The same Image is shared by every view.
+     * @param resource Path of the image resource, e.g. "/res/floor.png".
+     * @return The tile image, TILE_SIZE pixels square.
+     */
+    public static Image get(String resource) {
+        return CACHE.computeIfAbsent(resource, key -> new Image(TileImages.class.getResourceAsStream(key), TILE_SIZE, TILE_SIZE, false, true));
+    }
+}
@@ -0,0 +1,131 @@
+/**
+ * Read the README.md for more details.
+ * @author Julian Lau
+ */
+package dungeon;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import dnd.models.Monster;
+import dnd.models.Treasure;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DungeonFileTest {
+    /**
+     * Folder the dungeon files are written to, deleted after each test.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Generates a dungeon with some monsters and treasure added to it.
+     * @return The generator.
+     */
+    private static Generator stockedDungeon() {
+        Generator generator = GeneratorTest.generate(3, 100);
+        Monster monster = new Monster();
+        monster.setType(54);
+        Treasure treasure = new Treasure();
+        treasure.chooseTreasure(95);
+        generator.getChamberList().get(0).addMonster(monster);
+        generator.getChamberList().get(1).addTreasure(treasure);
+        generator.getPassageList().get(0).addMonster(monster);
+        generator.getPassageList().get(1).addTreasure(treasure);
+        return generator;
+    }
+
+    @Test
+    public void loadGivesBackTheSavedDungeon() throws IOException {
+        Generator saved = stockedDungeon();
+        Path path = folder.newFile("saved.dungeon").toPath();
+        DungeonFile.save(saved, path);
+        Generator loaded = DungeonFile.load(path);
+        assertEquals(GeneratorTest.describe(saved), GeneratorTest.describe(loaded));
+        assertArrayEquals(GeneratorTest.targets(saved), GeneratorTest.targets(loaded));
+        for (int p = 0; p < loaded.getPassageList().size(); ++p) {
+            assertEquals(saved.getPassageStart(p), loaded.getPassageStart(p));
+            assertEquals(saved.getPassageEnd(p), loaded.getPassageEnd(p));
+            assertSame(loaded.getDoor(loaded.getPassageDoorId(p)), loaded.getPassageList().get(p).getDoors().get(0));
+        }
+    }
+
+    @Test
+    public void savesOverAFileJustLoaded() throws IOException {
+        Path path = folder.newFile("resaved.dungeon").toPath();
+        DungeonFile.save(stockedDungeon(), path);
+        Generator loaded = DungeonFile.load(path);
+        loaded.getChamberList().get(0).removeMonster(0); // The monster stockedDungeon added.
+        DungeonFile.save(loaded, path);
+        assertEquals(GeneratorTest.describe(loaded), GeneratorTest.describe(DungeonFile.load(path)));
+    }
+
+    @Test
+    public void rejectsFilesThatAreNotDungeons() throws IOException {
+        Path path = folder.newFile("text.dungeon").toPath();
+        Files.write(path, "not a dungeon".getBytes("UTF-8"));
+        try {
+            DungeonFile.load(path);
+            fail("Loaded a text file");
+        } catch (IOException expected) {
+            assertEquals("Not a dungeon file: " + path, expected.getMessage());
+        }
+    }
+
+    @Test
+    public void rejectsTruncatedFiles() throws IOException {
+        Path path = folder.newFile("cut.dungeon").toPath();
+        DungeonFile.save(stockedDungeon(), path);
+        byte[] bytes = Files.readAllBytes(path);
+        for (int length : new int[] {12, bytes.length / 3, bytes.length - 1}) {
+            Files.write(path, Arrays.copyOf(bytes, length));
+            try {
+                DungeonFile.load(path);
+                fail("Loaded a file cut to " + length + " bytes");
+            } catch (IOException expected) {
+                continue;
+            }
+        }
+    }
+
+    @Test
+    public void rejectsDoorLinksThatDoNotFit() {
+        Generator generator = GeneratorTest.generate(3, 20);
+        int[] good = GeneratorTest.targets(generator);
+        int[][] bad = {
+            Arrays.copyOf(good, good.length - 1), // One link short.
+            withLink(good, 0, generator.getDoorOwner(0)), // Back into its own chamber.
+            withLink(good, 0, 20), // Past the last chamber.
+            withLink(good, 0, -2),
+        };
+        for (int[] targets : bad) {
+            try {
+                generator.restore(generator.getChamberList(), generator.getPassageList(), targets);
+                fail("Restored the links " + Arrays.toString(targets));
+            } catch (IOException expected) {
+                continue;
+            }
+        }
+    }
+
+    /**
+     * Returns a copy of the door links with one changed.
+     * @param targets The links.
+     * @param door The door changed.
+     * @param chamber The chamber it leads to instead.
+     * @return The changed copy.
+     */
+    private static int[] withLink(int[] targets, int door, int chamber) {
+        int[] changed = targets.clone();
+        changed[door] = chamber;
+        return changed;
+    }
+}
@@ -0,0 +1,79 @@
+/**
+ * Read the README.md for more details.
+ * @author Julian Lau
+ */
+package dungeon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import dnd.models.Monster;
+import org.junit.Test;
+
+public class DungeonHistoryTest {
+
+    /**
+     * Returns a state with a monster added to one chamber.
+     * @param state The state edited.
+     * @param chamberNum The chamber.
+     * @return The new state.
+     */
+    private static DungeonState withMonster(DungeonState state, int chamberNum) {
+        Monster monster = new Monster();
+        monster.setType(4);
+        return state.withChamber(chamberNum, state.getChamber(chamberNum).withMonster(monster));
+    }
+
+    @Test
+    public void undoAndRedoWalkThroughEveryState() {
+        DungeonState first = DungeonState.of(GeneratorTest.generate(1, 10));
+        DungeonState second = withMonster(first, 0);
+        DungeonState third = withMonster(second, 1);
+        DungeonHistory history = new DungeonHistory(first);
+        assertFalse(history.canUndo());
+        history.push(second);
+        history.push(third);
+
+        assertSame(second, history.undo());
+        assertSame(first, history.undo());
+        assertFalse(history.canUndo());
+        assertTrue(history.canRedo());
+        assertSame(second, history.redo());
+        assertSame(third, history.redo());
+        assertFalse(history.canRedo());
+        assertSame(third, history.getCurrent());
+    }
+
+    @Test
+    public void pushForgetsWhatCouldBeRedone() {
+        DungeonState first = DungeonState.of(GeneratorTest.generate(1, 10));
+        DungeonHistory history = new DungeonHistory(first);
+        history.push(withMonster(first, 0));
+        history.undo();
+        DungeonState other = withMonster(first, 2);
+        history.push(other);
+        assertFalse(history.canRedo());
+        assertSame(first, history.undo());
+        assertSame(other, history.redo());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void undoWithNothingToUndoThrows() {
+        new DungeonHistory(DungeonState.of(GeneratorTest.generate(1, 5))).undo();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void redoWithNothingToRedoThrows() {
+        new DungeonHistory(DungeonState.of(GeneratorTest.generate(1, 5))).redo();
+    }
+
+    @Test
+    public void editsLeaveEarlierStatesUnchanged() {
+        DungeonState first = DungeonState.of(GeneratorTest.generate(1, 10));
+        int before = first.getChamber(0).getNumMonsters();
+        withMonster(first, 0);
+        assertEquals(before, first.getChamber(0).getNumMonsters());
+    }
+}
@@ -0,0 +1,94 @@
+/**
+ * Read the README.md for more details.
+ * @author Julian Lau
+ */
+package dungeon;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Test;
+
+public class GeneratorTest {
+
+    /**
+     * Generates a whole dungeon from a seed.
+     * @param seed The seed.
+     * @param count Number of chambers.
+     * @return The generator.
+     */
+    static Generator generate(long seed, int count) {
+        Generator generator = new Generator(seed);
+        generator.createChambers(count);
+        generator.setAvailableChambers();
+        generator.assignChambers();
+        generator.createPassages();
+        return generator;
+    }
+
+    /**
+     * Returns the text of every space and door. Treasure protection is rolled inside the
+     * dnd library, not from the generator's dice, so it is left out.
+     * @param generator The dungeon.
+     * @return The text.
+     * @throws IOException Never, the writer is in memory.
+     */
+    static String describe(Generator generator) throws IOException {
+        StringWriter out = new StringWriter();
+        DescriptionRenderer.writeDungeon(generator, out);
+        return out.toString().replaceAll("The treasure is (guarded by .*|not guarded\\.)\n", "");
+    }
+
+    /**
+     * Returns the chamber every door leads to.
+     * @param generator The dungeon.
+     * @return The targets, indexed by door id.
+     */
+    static int[] targets(Generator generator) {
+        int[] targets = new int[generator.getNumDoors()];
+        for (int d = 0; d < targets.length; ++d) {
+            targets[d] = generator.getDoorTarget(d);
+        }
+        return targets;
+    }
+
+    @Test
+    public void sameSeedGivesSameDungeon() throws IOException {
+        Generator one = generate(42, 200);
+        Generator two = generate(42, 200);
+        assertEquals(describe(one), describe(two));
+        assertArrayEquals(targets(one), targets(two));
+    }
+
+    @Test
+    public void otherSeedGivesOtherDungeon() throws IOException {
+        assertNotEquals(describe(generate(42, 200)), describe(generate(43, 200)));
+    }
+
+    @Test
+    public void parallelChambersMatchSequential() throws IOException {
+        Generator sequential = new Generator(7);
+        sequential.createChambers(1000);
+        for (int threads : new int[] {1, 3, 8}) {
+            Generator parallel = new Generator(7);
+            parallel.createChambers(1000, new ForkJoinPool(threads));
+            assertEquals(describe(sequential), describe(parallel));
+        }
+    }
+
+    @Test
+    public void passagesStartAtTheirChamberDoor() {
+        Generator generator = generate(5, 100);
+        for (int p = 0; p < generator.getPassageList().size(); ++p) {
+            int door = generator.getPassageDoorId(p);
+            assertSame(generator.getDoor(door), generator.getPassageList().get(p).getDoors().get(0));
+            assertEquals(generator.getDoorOwner(door), generator.getPassageStart(p));
+            assertNotEquals(generator.getPassageStart(p), generator.getPassageEnd(p));
+        }
+    }
+}
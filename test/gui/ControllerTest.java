@@ -0,0 +1,76 @@
+package gui;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import dungeon.Generator;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ControllerTest {
+    /**
+     * Controller over a small seeded dungeon, made fresh for each test.
+     */
+    private Controller controller;
+
+    /**
+     * Generates the dungeon.
+     */
+    @Before
+    public void setUp() {
+        Generator generator = new Generator(8);
+        generator.createChambers(10);
+        generator.setAvailableChambers();
+        generator.assignChambers();
+        generator.createPassages();
+        controller = new Controller(generator);
+    }
+
+    @Test
+    public void undoAndRedoAnEdit() {
+        int before = controller.getChamberNumMonsters(0);
+        controller.addChamberMonster(0, 54);
+        assertEquals(before + 1, controller.getChamberNumMonsters(0));
+
+        controller.undo();
+        assertEquals(before, controller.getChamberNumMonsters(0));
+        assertFalse(controller.canUndo());
+        assertTrue(controller.canRedo());
+
+        controller.redo();
+        assertEquals(before + 1, controller.getChamberNumMonsters(0));
+        assertFalse(controller.canRedo());
+    }
+
+    @Test
+    public void undoesABulkRemovalInOneStep() {
+        for (int i = 0; i < 4; ++i) {
+            controller.addPassageTreasure(1, 95);
+        }
+        int full = controller.getPassageNumTreasure(1);
+        controller.removePassageTreasure(1, new int[] {0, 2, 2});
+        assertEquals(full - 2, controller.getPassageNumTreasure(1));
+        controller.undo();
+        assertEquals(full, controller.getPassageNumTreasure(1));
+    }
+
+    @Test
+    public void newEditDropsTheRedo() {
+        int before = controller.getChamberNumMonsters(2);
+        controller.addChamberMonster(2, 4);
+        controller.undo();
+        controller.addChamberMonster(3, 4);
+        assertFalse(controller.canRedo());
+        controller.redo(); // Does nothing.
+        assertEquals(before, controller.getChamberNumMonsters(2));
+    }
+
+    @Test
+    public void undoAndRedoDoNothingWithoutHistory() {
+        int before = controller.getChamberNumMonsters(0);
+        controller.undo();
+        controller.redo();
+        assertEquals(before, controller.getChamberNumMonsters(0));
+    }
+}